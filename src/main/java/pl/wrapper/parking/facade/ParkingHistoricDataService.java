@@ -1,15 +1,32 @@
 package pl.wrapper.parking.facade;
 
 import org.springframework.lang.Nullable;
+import pl.wrapper.parking.facade.dto.historicData.HistoricDayData;
 import pl.wrapper.parking.facade.dto.historicData.HistoricDayParkingData;
-import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodParkingData;
+import pl.wrapper.parking.facade.dto.historicData.HistoricGrouping;
+import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodAggregateData;
+import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodRollupData;
+import pl.wrapper.parking.facade.dto.historicData.HistoricResolution;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 public interface ParkingHistoricDataService {
     List<HistoricDayParkingData> getDataForDay(LocalDate forDate);
     HistoricDayParkingData getDataForDay(LocalDate forDate, int parkingId);
-    HistoricPeriodParkingData getDataForPeriod(LocalDate fromDate, @Nullable LocalDate toDate, int parkingId);
-    List<HistoricPeriodParkingData> getDataForPeriod(LocalDate fromDate, @Nullable LocalDate toDate);
+    HistoricPeriodRollupData getRollupsForPeriod(LocalDate fromDate, @Nullable LocalDate toDate, int parkingId, HistoricResolution resolution);
+    List<HistoricPeriodRollupData> getRollupsForPeriod(LocalDate fromDate, @Nullable LocalDate toDate, HistoricResolution resolution);
+    HistoricPeriodAggregateData getAggregatesForPeriod(LocalDate fromDate, @Nullable LocalDate toDate, int parkingId, HistoricGrouping grouping);
+    List<HistoricPeriodAggregateData> getAggregatesForPeriod(LocalDate fromDate, @Nullable LocalDate toDate, HistoricGrouping grouping);
+    int getParkingCountForPeriod(LocalDate fromDate, @Nullable LocalDate toDate);
+    void forEachDayOfPeriod(LocalDate fromDate, @Nullable LocalDate toDate, int parkingId, Consumer<HistoricDayData> consumer);
+    // one pass for lots fromParkingId until toParkingId: per day, the day of each lot stored that day with its id
+    void forEachDayOfPeriod(LocalDate fromDate, @Nullable LocalDate toDate, int fromParkingId, int toParkingId, ObjIntConsumer<HistoricDayData> consumer);
+
+    // raw day tables, free spots per lot and interval; they are shared with the service's cache and must not be modified
+    @Nullable short[][] getTableForDay(LocalDate forDate);
+    void forEachDayTableOfPeriod(LocalDate fromDate, @Nullable LocalDate toDate, BiConsumer<LocalDate, short[][]> consumer);
 }
@@ -1,32 +1,41 @@
 package pl.wrapper.parking.facade;
 
 import org.springframework.lang.Nullable;
+import pl.wrapper.parking.facade.dto.main.NearbyParking;
 import pl.wrapper.parking.infrastructure.error.Result;
 import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
 public interface ParkingService {
 
-    List<ParkingResponse> getAllWithFreeSpots(@Nullable Boolean opened);
+    Mono<List<ParkingResponse>> getAllWithFreeSpots(@Nullable Boolean opened);
 
-    Result<ParkingResponse> getWithTheMostFreeSpots(@Nullable Boolean opened);
+    Mono<Result<ParkingResponse>> getWithTheMostFreeSpots(@Nullable Boolean opened);
 
-    Result<ParkingResponse> getClosestParking(String address);
+    Mono<Result<ParkingResponse>> getClosestParking(String address);
 
-    Result<ParkingResponse> getByName(String name, @Nullable Boolean opened);
+    Mono<List<NearbyParking>> getNearest(double latitude, double longitude, int count);
 
-    Result<ParkingResponse> getById(Integer id, @Nullable Boolean opened);
+    Mono<List<NearbyParking>> getWithinRadius(double latitude, double longitude, double radiusKm);
 
-    Result<ParkingResponse> getBySymbol(String symbol, @Nullable Boolean opened);
+    Mono<List<ParkingResponse>> getInArea(
+            double minLatitude, double minLongitude, double maxLatitude, double maxLongitude);
 
-    List<ParkingResponse> getByParams(
+    Mono<Result<ParkingResponse>> getByName(String name, @Nullable Boolean opened);
+
+    Mono<Result<ParkingResponse>> getById(Integer id, @Nullable Boolean opened);
+
+    Mono<Result<ParkingResponse>> getBySymbol(String symbol, @Nullable Boolean opened);
+
+    Mono<List<ParkingResponse>> getByParams(
             @Nullable String symbol,
             @Nullable Integer id,
             @Nullable String name,
             @Nullable Boolean opened,
             @Nullable Boolean hasFreeSpots);
 
-    Object getChartForToday(Integer forId);
-    List<Object> getAllChartsForToday();
+    Mono<Object> getChartForToday(Integer forId);
+    Mono<List<Object>> getAllChartsForToday();
 }
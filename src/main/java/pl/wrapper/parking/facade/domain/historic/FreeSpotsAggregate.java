@@ -0,0 +1,30 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+/**
+ * Min, max, sum and count of the free spots in a range of slots of one lot, {@code -1} gaps left out.
+ */
+record FreeSpotsAggregate(short min, short max, int sum, int samples) {
+
+    /**
+     * @return the aggregate of slots {@code [fromSlot, toSlot)}, null if none of them has data
+     */
+    static FreeSpotsAggregate of(short[] row, int fromSlot, int toSlot) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int sum = 0;
+        int samples = 0;
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            short value = row[slot];
+            if (value < 0) continue;
+            if (value < min) min = value;
+            if (value > max) max = value;
+            sum += value;
+            samples++;
+        }
+        return samples == 0 ? null : new FreeSpotsAggregate((short) min, (short) max, sum, samples);
+    }
+
+    double average() {
+        return (double) sum / samples;
+    }
+}
@@ -0,0 +1,90 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.wrapper.parking.facade.ParkingHistoricDataService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.time.LocalDate;
+
+/**
+ * Binary form of the historic day tables, for bulk consumers. The body is one frame per stored day, in date order,
+ * all values little-endian:
+ * <pre>
+ * int32  epoch day of the date
+ * int16  parking count (rows)
+ * int16  slot count (columns)
+ * int16  interval length in minutes
+ * int16  free spots [parking count][slot count], row by row, -1 where the data couldn't have been fetched
+ * </pre>
+ * Slot {@code i} starts {@code i * interval} minutes after midnight. Days without data have no frame.
+ */
+@Component
+class HistoricBinaryWriter {
+
+    static final int HEADER_BYTES = Integer.BYTES + 3 * Short.BYTES;
+
+    private final ParkingHistoricDataService parkingHistoricDataService;
+    private final int intervalLength;
+
+    HistoricBinaryWriter(ParkingHistoricDataService parkingHistoricDataService,
+                         @Value("${historic.data-update.minutes}") Integer intervalLength) {
+        this.parkingHistoricDataService = parkingHistoricDataService;
+        this.intervalLength = intervalLength;
+    }
+
+    StreamingResponseBody day(LocalDate forDate, short[][] dataTable) {
+        return out -> new FrameWriter(out).write(forDate, dataTable);
+    }
+
+    StreamingResponseBody period(LocalDate fromDate, LocalDate toDate) {
+        return out -> {
+            FrameWriter writer = new FrameWriter(out);
+            try {
+                parkingHistoricDataService.forEachDayTableOfPeriod(fromDate, toDate, (date, dataTable) -> {
+                    try {
+                        writer.write(date, dataTable);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    /**
+     * Encodes a frame into one reused buffer, the rows go in with bulk puts, and hands its backing array to the
+     * response stream. Wrapping the stream in a channel would only add a copy.
+     */
+    private final class FrameWriter {
+
+        private final OutputStream out;
+        private ByteBuffer buffer = ByteBuffer.allocate(0);
+
+        private FrameWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        private void write(LocalDate date, short[][] dataTable) throws IOException {
+            int slotCount = dataTable.length == 0 ? 0 : dataTable[0].length;
+            int frameBytes = HEADER_BYTES + dataTable.length * slotCount * Short.BYTES;
+            if (buffer.capacity() < frameBytes) buffer = ByteBuffer.allocate(frameBytes).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.clear();
+            buffer.putInt((int) date.toEpochDay())
+                    .putShort((short) dataTable.length)
+                    .putShort((short) slotCount)
+                    .putShort((short) intervalLength);
+            ShortBuffer values = buffer.asShortBuffer();
+            for (short[] row : dataTable) values.put(row);
+            out.write(buffer.array(), 0, frameBytes);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.wrapper.parking.facade.ParkingHistoricDataService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.function.BiConsumer;
+
+import static pl.wrapper.parking.infrastructure.web.PrettyPrintJsonHttpMessageConverter.isPrettyPrintRequested;
+
+/**
+ * Compact form of the historic responses, written straight from the day tables:
+ * <pre>
+ * {"startTime": "00:00", "intervalMinutes": 5,
+ *  "parkings": [{"parkingId": 0, "days": [{"atDate": "2025-08-23", "freeSpots": [12, 12, 13, -1, ...]}, ...]}, ...]}
+ * </pre>
+ * Value {@code i} of {@code freeSpots} is the interval starting {@code i * intervalMinutes} after {@code startTime}.
+ * Every endpoint answers with this one shape, a day is a period of one day. Periods of several lots are read in
+ * one pass, the lots after the first are kept in {@link HistoricLotBuffers} until the pass is done.
+ */
+@Component
+class HistoricCompactJsonWriter {
+
+    private static final String START_TIME = "00:00";
+
+    private final ParkingHistoricDataService parkingHistoricDataService;
+    private final ObjectMapper objectMapper;
+    private final int intervalLength;
+
+    HistoricCompactJsonWriter(ParkingHistoricDataService parkingHistoricDataService, ObjectMapper objectMapper,
+                              @Value("${historic.data-update.minutes}") Integer intervalLength) {
+        this.parkingHistoricDataService = parkingHistoricDataService;
+        this.objectMapper = objectMapper;
+        this.intervalLength = intervalLength;
+    }
+
+    /**
+     * Source of the day tables of a response, passes them to the consumer in date order.
+     */
+    @FunctionalInterface
+    interface DayTables {
+        void forEach(BiConsumer<LocalDate, short[][]> consumer);
+    }
+
+    StreamingResponseBody day(LocalDate forDate, short[][] dataTable, int fromParkingId, int toParkingId) {
+        return write(consumer -> consumer.accept(forDate, dataTable), fromParkingId, toParkingId);
+    }
+
+    StreamingResponseBody period(LocalDate fromDate, LocalDate toDate, int fromParkingId, int toParkingId) {
+        return write(consumer -> parkingHistoricDataService.forEachDayTableOfPeriod(fromDate, toDate, consumer),
+                fromParkingId, toParkingId);
+    }
+
+    StreamingResponseBody write(DayTables days, int fromParkingId, int toParkingId) {
+        boolean pretty = isPrettyPrintRequested();
+        return out -> {
+            try (JsonGenerator json = open(out, pretty);
+                 HistoricLotBuffers lots = new HistoricLotBuffers(json, out, objectMapper, pretty,
+                         fromParkingId, toParkingId, HistoricLotBuffers.MEMORY_BYTES_PER_LOT)) {
+                for (int parkingId = fromParkingId; parkingId < toParkingId; parkingId++)
+                    startParking(lots.lot(parkingId), parkingId);
+                writeDays(lots, days, fromParkingId, toParkingId);
+                for (int parkingId = fromParkingId; parkingId < toParkingId; parkingId++)
+                    endParking(lots.lot(parkingId));
+                lots.appendBuffered();
+                close(json);
+            }
+        };
+    }
+
+    private static void writeDays(HistoricLotBuffers lots, DayTables days, int fromParkingId, int toParkingId) throws IOException {
+        try {
+            days.forEach((date, dataTable) -> {
+                try {
+                    for (int parkingId = fromParkingId; parkingId < Math.min(toParkingId, dataTable.length); parkingId++)
+                        writeDay(lots.lot(parkingId), date, dataTable[parkingId]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private JsonGenerator open(OutputStream out, boolean pretty) throws IOException {
+        JsonGenerator json = objectMapper.createGenerator(out);
+        if (pretty) json.useDefaultPrettyPrinter();
+        json.writeStartObject();
+        json.writeStringField("startTime", START_TIME);
+        json.writeNumberField("intervalMinutes", intervalLength);
+        json.writeArrayFieldStart("parkings");
+        return json;
+    }
+
+    private static void close(JsonGenerator json) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    private static void startParking(JsonGenerator json, int parkingId) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("parkingId", parkingId);
+        json.writeArrayFieldStart("days");
+    }
+
+    private static void endParking(JsonGenerator json) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    private static void writeDay(JsonGenerator json, LocalDate date, short[] freeSpots) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("atDate", date.toString());
+        json.writeArrayFieldStart("freeSpots");
+        for (short value : freeSpots) json.writeNumber(value);
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+}
@@ -24,11 +24,15 @@ import java.time.LocalDate;
 @NamedQueries({
         @NamedQuery(
                 name = "HistoricData.periodQuery",
-                query = "SELECT data FROM HistoricDataEntry data WHERE data.date >= :from AND data.date <= :to"
+                query = "SELECT data FROM HistoricDataEntry data WHERE data.date >= :from AND data.date <= :to ORDER BY data.date"
         ),
         @NamedQuery(
                 name = "HistoricData.fromQuery",
-                query = "SELECT data FROM HistoricDataEntry data WHERE data.date >= :from"
+                query = "SELECT data FROM HistoricDataEntry data WHERE data.date >= :from ORDER BY data.date"
+        ),
+        @NamedQuery(
+                name = "HistoricData.beforeQuery",
+                query = "SELECT data FROM HistoricDataEntry data WHERE data.date < :before ORDER BY data.date"
         )
 })
 @NamedNativeQuery(
@@ -57,8 +61,4 @@ class HistoricDataEntry {
             }
         }
     }
-
-    public void addValue(int parkingId, int forTimeframe , int freeSpots){
-        this.parkingInfo[parkingId][forTimeframe] = (short) freeSpots;
-    }
 }
\ No newline at end of file
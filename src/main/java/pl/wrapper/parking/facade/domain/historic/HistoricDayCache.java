@@ -0,0 +1,93 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoded day tables kept in memory. Days before today never change, so they are kept until the byte bound
+ * evicts them, least recently used first; past days without any data are remembered as {@link #NO_DATA}.
+ * Today's table is the only one that changes: every fetch publishes a new version through {@link #putToday},
+ * and it joins the past days once the date moves on. Returned tables are shared, callers must not modify them.
+ */
+final class HistoricDayCache {
+
+    static final short[][] NO_DATA = new short[0][];
+
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final long maxBytes;
+    private final Map<LocalDate, short[][]> pastDays = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+    private LocalDate todayDate;
+    private short[][] todayTable;
+
+    HistoricDayCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the table of the given day, {@link #NO_DATA} for a past day known to be empty, null if not cached
+     */
+    synchronized short[][] get(LocalDate date, LocalDate today) {
+        rollOver(today);
+        if (date.equals(todayDate)) return todayTable;
+        return pastDays.get(date);
+    }
+
+    /**
+     * Caches a table read from the database. Only past days are taken, today's table comes from {@link #putToday}
+     * so that a read racing with a fetch cannot replace it with an older version.
+     */
+    synchronized void put(LocalDate date, short[][] table, LocalDate today) {
+        rollOver(today);
+        if (date.isBefore(today)) putPastDay(date, table);
+    }
+
+    synchronized void putToday(LocalDate today, short[][] table) {
+        rollOver(today);
+        todayDate = today;
+        todayTable = table;
+    }
+
+    synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    private void rollOver(LocalDate today) {
+        if (todayDate == null || !todayDate.isBefore(today)) return;
+        putPastDay(todayDate, todayTable);
+        todayDate = null;
+        todayTable = null;
+    }
+
+    private void putPastDay(LocalDate date, short[][] table) {
+        short[][] previous = pastDays.put(date, table);
+        usedBytes += weigh(table) - (previous == null ? 0 : weigh(previous));
+        Iterator<short[][]> eldest = pastDays.values().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            usedBytes -= weigh(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Copy of the table with one slot of consecutive rows set, only the changed rows are copied.
+     */
+    static short[][] withSlot(short[][] table, int slot, int fromRow, short[] values) {
+        short[][] copy = table.clone();
+        for (int i = 0; i < values.length && fromRow + i < copy.length; i++) {
+            short[] row = copy[fromRow + i].clone();
+            row[slot] = values[i];
+            copy[fromRow + i] = row;
+        }
+        return copy;
+    }
+
+    private static long weigh(short[][] table) {
+        long bytes = ARRAY_HEADER_BYTES + (long) table.length * Integer.BYTES;
+        for (short[] row : table) bytes += ARRAY_HEADER_BYTES + row.length * 2L;
+        return bytes;
+    }
+}
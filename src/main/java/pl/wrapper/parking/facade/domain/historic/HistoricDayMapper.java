@@ -0,0 +1,101 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Maps the days of a period one by one, keeping their order. From {@code historic.parallel.threshold-days} days on,
+ * the days are mapped in chunks of {@link #CHUNK_DAYS} on a fork-join pool of {@code historic.parallel.parallelism}
+ * workers (0 for one per core), ahead of the consumer. Shorter periods are mapped on the calling thread, handing them
+ * to the pool costs more than it saves. The mapper must not touch the persistence context, it runs outside the
+ * caller's session.
+ */
+@Component
+class HistoricDayMapper {
+
+    static final int CHUNK_DAYS = 16;
+
+    private final int thresholdDays;
+    private final ForkJoinPool pool;
+
+    HistoricDayMapper(@Value("${historic.parallel.threshold-days}") int thresholdDays,
+                      @Value("${historic.parallel.parallelism}") int parallelism) {
+        this.thresholdDays = thresholdDays;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Maps {@code days} as the caller iterates, in their order. The first {@code threshold-days} days are mapped on
+     * the calling thread when asked for. After that the calling thread reads the days in chunks of
+     * {@link #CHUNK_DAYS} and hands them to the pool, keeping one chunk more than there are workers mapped ahead
+     * while it consumes the oldest one. {@code days} is only ever read by the caller, so it may be a cursor of the
+     * caller's session.
+     */
+    <T, R> Iterator<R> mapAhead(Iterator<T> days, Function<? super T, ? extends R> mapper) {
+        return new MapAhead<>(days, mapper);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    private final class MapAhead<T, R> implements Iterator<R> {
+        private final Iterator<T> days;
+        private final Function<? super T, ? extends R> mapper;
+        private final Deque<ForkJoinTask<List<R>>> chunksAhead = new ArrayDeque<>();
+        private Iterator<R> chunk = Collections.emptyIterator();
+        private int daysOnCaller;
+
+        private MapAhead(Iterator<T> days, Function<? super T, ? extends R> mapper) {
+            this.days = days;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return chunk.hasNext() || !chunksAhead.isEmpty() || days.hasNext();
+        }
+
+        @Override
+        public R next() {
+            // chunks only start once the threshold is reached, so no chunk is ahead of a day mapped here
+            if (daysOnCaller < thresholdDays) {
+                daysOnCaller++;
+                return mapper.apply(days.next());
+            }
+            if (!chunk.hasNext()) {
+                if (chunksAhead.isEmpty()) submitAhead();
+                ForkJoinTask<List<R>> nextChunk = chunksAhead.poll();
+                if (nextChunk == null) throw new NoSuchElementException();
+                submitAhead();
+                chunk = nextChunk.join().iterator();
+            }
+            return chunk.next();
+        }
+
+        private void submitAhead() {
+            while (chunksAhead.size() <= pool.getParallelism() && days.hasNext()) {
+                List<T> chunkDays = new ArrayList<>(CHUNK_DAYS);
+                while (chunkDays.size() < CHUNK_DAYS && days.hasNext()) chunkDays.add(days.next());
+                chunksAhead.add(pool.submit(() -> {
+                    List<R> results = new ArrayList<>(chunkDays.size());
+                    for (T day : chunkDays) results.add(mapper.apply(day));
+                    return results;
+                }));
+            }
+        }
+    }
+}
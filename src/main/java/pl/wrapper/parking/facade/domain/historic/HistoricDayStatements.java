@@ -0,0 +1,67 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * The statements {@code storeNewData} runs on today's row of {@code historic.historic_data}, through plain JDBC
+ * because slices of a two-dimensional array have no JPA mapping. Row {@code i} of a day table holds lot id
+ * {@code i}. Lot ids start at 1, so row 0 is never written and stays all {@code -1}.
+ * <p>
+ * Postgres does not enlarge a multidimensional array on a slice assignment past its bounds, it fails the update.
+ * A lot id beyond the last row of the day is therefore made room for by {@link #growDay} first.
+ */
+final class HistoricDayStatements {
+
+    static final String CREATE_DAY_SQL =
+            "INSERT INTO historic.historic_data(date, data_table) VALUES (?, array_fill(-1::smallint, ARRAY[?, ?])) ON CONFLICT (date) DO NOTHING";
+
+    // appends rows of -1 along the first dimension, only if the row has fewer rows than asked for
+    static final String GROW_DAY_SQL =
+            "UPDATE historic.historic_data SET data_table = data_table || array_fill(-1::smallint, ARRAY[? - array_length(data_table, 1), ?]) "
+                    + "WHERE date = ? AND array_length(data_table, 1) < ?";
+
+    // array subscripts are 1-based: rows first..last, the single column of the slot
+    static final String UPDATE_SLOT_SQL =
+            "UPDATE historic.historic_data SET data_table[?:?][?:?] = ? WHERE date = ?";
+
+    private HistoricDayStatements() {}
+
+    /** Creates the day's row with {@code parkingCount} rows of {@code slotCount} slots, if there is none yet. */
+    static void createDay(Connection connection, LocalDate day, int parkingCount, int slotCount) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(CREATE_DAY_SQL)) {
+            statement.setObject(1, day);
+            statement.setInt(2, parkingCount);
+            statement.setInt(3, slotCount);
+            statement.executeUpdate();
+        }
+    }
+
+    /** Extends the day's row to {@code parkingCount} rows, does nothing if it has that many already. */
+    static int growDay(Connection connection, LocalDate day, int parkingCount, int slotCount) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(GROW_DAY_SQL)) {
+            statement.setInt(1, parkingCount);
+            statement.setInt(2, slotCount);
+            statement.setObject(3, day);
+            statement.setInt(4, parkingCount);
+            return statement.executeUpdate();
+        }
+    }
+
+    // one assignment to a slice of the slot's column, Postgres rejects several assignments to the same array column
+    static int updateSlot(Connection connection, LocalDate day, int slot, int fromRow, short[] freeSpots) throws SQLException {
+        Short[][] column = new Short[freeSpots.length][];
+        for (int i = 0; i < freeSpots.length; i++) column[i] = new Short[] {freeSpots[i]};
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_SLOT_SQL)) {
+            statement.setInt(1, fromRow + 1);
+            statement.setInt(2, fromRow + freeSpots.length);
+            statement.setInt(3, slot + 1);
+            statement.setInt(4, slot + 1);
+            statement.setArray(5, connection.createArrayOf("int2", column));
+            statement.setObject(6, day);
+            return statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Lets a response with one JSON object per lot be written in a single pass over the days of a period. The first
+ * lot is written straight to the response. Every other lot gets a generator of its own, whose output is kept
+ * until {@link #appendBuffered} copies it behind the first lot, in lot order. A lot's output stays on the heap up
+ * to {@code memoryBytes}. Past that it moves to a temporary file, so a multi-year range holds at most
+ * {@code memoryBytes} per lot in memory.
+ * <p>
+ * The buffered lots are written at the root level of their own generators, so with pretty printing they are
+ * indented one level less than the first lot.
+ */
+final class HistoricLotBuffers implements Closeable {
+
+    static final int MEMORY_BYTES_PER_LOT = 256 * 1024;
+
+    private final JsonGenerator json;
+    private final OutputStream out;
+    private final int fromParkingId;
+    private final LotBuffer[] buffers;
+    private final JsonGenerator[] generators;
+
+    /**
+     * @param json the response's generator, positioned where the first lot's object starts
+     * @param out  the stream under {@code json}, the buffered lots are copied to it
+     */
+    HistoricLotBuffers(JsonGenerator json, OutputStream out, ObjectMapper objectMapper, boolean pretty,
+                       int fromParkingId, int toParkingId, int memoryBytes) throws IOException {
+        this.json = json;
+        this.out = out;
+        this.fromParkingId = fromParkingId;
+        int lotCount = Math.max(toParkingId - fromParkingId, 0);
+        this.buffers = new LotBuffer[lotCount];
+        this.generators = new JsonGenerator[lotCount];
+        if (lotCount > 0) generators[0] = json;
+        for (int i = 1; i < lotCount; i++) {
+            buffers[i] = new LotBuffer(memoryBytes);
+            generators[i] = objectMapper.createGenerator(buffers[i]);
+            if (pretty) generators[i].useDefaultPrettyPrinter();
+        }
+    }
+
+    JsonGenerator lot(int parkingId) {
+        return generators[parkingId - fromParkingId];
+    }
+
+    /** Writes the buffered lots behind the first one, each as the next element of the enclosing array. */
+    void appendBuffered() throws IOException {
+        json.flush();
+        for (int i = 1; i < buffers.length; i++) {
+            generators[i].close();
+            out.write(',');
+            buffers[i].transferTo(out);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (LotBuffer buffer : buffers) if (buffer != null) buffer.delete();
+    }
+
+    private static final class LotBuffer extends OutputStream {
+        private final int memoryBytes;
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        private Path file;
+        private OutputStream fileOut;
+
+        private LotBuffer(int memoryBytes) {
+            this.memoryBytes = memoryBytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target(1).write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            target(length).write(bytes, offset, length);
+        }
+
+        private OutputStream target(int length) throws IOException {
+            if (fileOut != null) return fileOut;
+            if (memory.size() + length <= memoryBytes) return memory;
+            file = Files.createTempFile("historic-lot-", ".json");
+            fileOut = new BufferedOutputStream(Files.newOutputStream(file));
+            memory.writeTo(fileOut);
+            memory = null;
+            return fileOut;
+        }
+
+        private void transferTo(OutputStream out) throws IOException {
+            if (fileOut == null) {
+                memory.writeTo(out);
+                return;
+            }
+            fileOut.close();
+            Files.copy(file, out);
+        }
+
+        private void delete() throws IOException {
+            if (fileOut != null) fileOut.close();
+            if (file != null) Files.deleteIfExists(file);
+        }
+    }
+}
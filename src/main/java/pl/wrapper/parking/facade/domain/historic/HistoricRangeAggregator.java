@@ -0,0 +1,130 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import pl.wrapper.parking.facade.dto.historicData.HistoricAggregateEntry;
+import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodAggregateData;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Min, max, sum, count and number of full intervals (no free spots) of the lots over the day tables passed to it,
+ * per lot or per lot and slot of day. Everything is kept in primitive arrays indexed by lot and cell, a cell
+ * being the slot of day or the whole lot. {@code -1} gaps are left out.
+ */
+final class HistoricRangeAggregator implements BiConsumer<LocalDate, short[][]> {
+
+    private final boolean bySlot;
+    private final int fromParkingId;
+    private final int toParkingId;
+
+    private short[][] min = new short[0][];
+    private short[][] max = new short[0][];
+    private long[][] sum = new long[0][];
+    private int[][] samples = new int[0][];
+    private int[][] full = new int[0][];
+
+    /**
+     * Aggregates the lots {@code [fromParkingId, toParkingId)}, the rows of the tables.
+     */
+    HistoricRangeAggregator(boolean bySlot, int fromParkingId, int toParkingId) {
+        this.bySlot = bySlot;
+        this.fromParkingId = fromParkingId;
+        this.toParkingId = toParkingId;
+    }
+
+    @Override
+    public void accept(LocalDate date, short[][] dataTable) {
+        int lastRow = Math.min(dataTable.length, toParkingId);
+        for (int parkingId = fromParkingId; parkingId < lastRow; parkingId++) {
+            short[] row = dataTable[parkingId];
+            ensureCells(parkingId, bySlot ? row.length : 1);
+            if (bySlot) accumulateSlots(parkingId, row);
+            else accumulateLot(parkingId, row);
+        }
+    }
+
+    private void accumulateSlots(int parkingId, short[] row) {
+        short[] min = this.min[parkingId], max = this.max[parkingId];
+        long[] sum = this.sum[parkingId];
+        int[] samples = this.samples[parkingId], full = this.full[parkingId];
+        for (int slot = 0; slot < row.length; slot++) {
+            short value = row[slot];
+            if (value < 0) continue;
+            if (value < min[slot]) min[slot] = value;
+            if (value > max[slot]) max[slot] = value;
+            sum[slot] += value;
+            samples[slot]++;
+            if (value == 0) full[slot]++;
+        }
+    }
+
+    private void accumulateLot(int parkingId, short[] row) {
+        int min = Short.MAX_VALUE, max = -1, sum = 0, samples = 0, full = 0;
+        for (short value : row) {
+            if (value < 0) continue;
+            if (value < min) min = value;
+            if (value > max) max = value;
+            sum += value;
+            samples++;
+            if (value == 0) full++;
+        }
+        if (samples == 0) return;
+        if (min < this.min[parkingId][0]) this.min[parkingId][0] = (short) min;
+        if (max > this.max[parkingId][0]) this.max[parkingId][0] = (short) max;
+        this.sum[parkingId][0] += sum;
+        this.samples[parkingId][0] += samples;
+        this.full[parkingId][0] += full;
+    }
+
+    private void ensureCells(int parkingId, int cells) {
+        if (parkingId >= min.length) {
+            int rows = parkingId + 1;
+            min = Arrays.copyOf(min, rows);
+            max = Arrays.copyOf(max, rows);
+            sum = Arrays.copyOf(sum, rows);
+            samples = Arrays.copyOf(samples, rows);
+            full = Arrays.copyOf(full, rows);
+        }
+        int oldCells = min[parkingId] == null ? 0 : min[parkingId].length;
+        if (oldCells >= cells) return;
+        min[parkingId] = oldCells == 0 ? new short[cells] : Arrays.copyOf(min[parkingId], cells);
+        Arrays.fill(min[parkingId], oldCells, cells, Short.MAX_VALUE);
+        max[parkingId] = oldCells == 0 ? new short[cells] : Arrays.copyOf(max[parkingId], cells);
+        Arrays.fill(max[parkingId], oldCells, cells, (short) -1);
+        sum[parkingId] = oldCells == 0 ? new long[cells] : Arrays.copyOf(sum[parkingId], cells);
+        samples[parkingId] = oldCells == 0 ? new int[cells] : Arrays.copyOf(samples[parkingId], cells);
+        full[parkingId] = oldCells == 0 ? new int[cells] : Arrays.copyOf(full[parkingId], cells);
+    }
+
+    /**
+     * @param totalSpots capacity by lot id, lots past its end or with 0 get no fill rate
+     * @param slotTimes  start of each slot of day, used when aggregating by slot
+     * @return one entry per lot with data, in lot order, each with its cells that have data
+     */
+    List<HistoricPeriodAggregateData> result(int[] totalSpots, List<String> slotTimes) {
+        List<HistoricPeriodAggregateData> resultList = new ArrayList<>();
+        for (int parkingId = fromParkingId; parkingId < min.length; parkingId++) {
+            if (min[parkingId] == null) continue;
+            int capacity = parkingId < totalSpots.length ? totalSpots[parkingId] : 0;
+            List<HistoricAggregateEntry> entries = new ArrayList<>();
+            for (int cell = 0; cell < min[parkingId].length; cell++) {
+                int cellSamples = samples[parkingId][cell];
+                if (cellSamples == 0) continue;
+                double average = (double) sum[parkingId][cell] / cellSamples;
+                entries.add(new HistoricAggregateEntry(
+                        bySlot && cell < slotTimes.size() ? slotTimes.get(cell) : null,
+                        min[parkingId][cell],
+                        average,
+                        max[parkingId][cell],
+                        capacity > 0 ? Math.clamp(1 - average / capacity, 0.0, 1.0) : null,
+                        full[parkingId][cell],
+                        cellSamples));
+            }
+            if (!entries.isEmpty()) resultList.add(new HistoricPeriodAggregateData((short) parkingId, entries));
+        }
+        return resultList;
+    }
+}
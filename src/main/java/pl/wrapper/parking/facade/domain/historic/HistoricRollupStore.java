@@ -0,0 +1,156 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodRollupData;
+import pl.wrapper.parking.facade.dto.historicData.HistoricResolution;
+import pl.wrapper.parking.facade.dto.historicData.HistoricRollupEntry;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hourly and daily min/avg/max of the free spots per lot, in {@code historic.historic_rollup_hourly} and
+ * {@code historic.historic_rollup_daily}. Rows keep the sum and the count of samples, the average is computed on
+ * read. Writes recompute rows from a day table and overwrite them, so storing the same hour again is harmless.
+ * Callers provide the transaction.
+ */
+@Component
+class HistoricRollupStore {
+
+    private static final String UPSERT_HOURLY_SQL = """
+            INSERT INTO historic.historic_rollup_hourly(date, parking_id, hour, min_free, max_free, sum_free, samples)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (date, parking_id, hour) DO UPDATE SET min_free = EXCLUDED.min_free,
+                max_free = EXCLUDED.max_free, sum_free = EXCLUDED.sum_free, samples = EXCLUDED.samples""";
+
+    private static final String UPSERT_DAILY_SQL = """
+            INSERT INTO historic.historic_rollup_daily(date, parking_id, min_free, max_free, sum_free, samples)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (date, parking_id) DO UPDATE SET min_free = EXCLUDED.min_free,
+                max_free = EXCLUDED.max_free, sum_free = EXCLUDED.sum_free, samples = EXCLUDED.samples""";
+
+    private static final String SELECT_HOURLY_SQL =
+            "SELECT parking_id, date, hour, min_free, max_free, sum_free, samples FROM historic.historic_rollup_hourly"
+                    + " WHERE date >= ? AND date <= ? AND (? < 0 OR parking_id = ?) ORDER BY parking_id, date, hour";
+
+    private static final String SELECT_DAILY_SQL =
+            "SELECT parking_id, date, -1, min_free, max_free, sum_free, samples FROM historic.historic_rollup_daily"
+                    + " WHERE date >= ? AND date <= ? AND (? < 0 OR parking_id = ?) ORDER BY parking_id, date";
+
+    private static final String SELECT_DAYS_SQL = "SELECT date FROM historic.historic_rollup_daily";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * Recomputes the rollups of hours {@code [fromHour, toHour)} and of the whole day from the day's table.
+     */
+    void store(LocalDate date, short[][] dataTable, int intervalLength, int fromHour, int toHour) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement hourly = connection.prepareStatement(UPSERT_HOURLY_SQL);
+                 PreparedStatement daily = connection.prepareStatement(UPSERT_DAILY_SQL)) {
+                for (int parkingId = 0; parkingId < dataTable.length; parkingId++) {
+                    short[] row = dataTable[parkingId];
+                    for (int hour = fromHour; hour < toHour; hour++) {
+                        FreeSpotsAggregate aggregate = FreeSpotsAggregate.of(
+                                row, Math.min(firstSlotOfHour(hour, intervalLength), row.length),
+                                Math.min(firstSlotOfHour(hour + 1, intervalLength), row.length));
+                        if (aggregate == null) continue;
+                        hourly.setObject(1, date);
+                        hourly.setShort(2, (short) parkingId);
+                        hourly.setShort(3, (short) hour);
+                        bindAggregate(hourly, 4, aggregate);
+                        hourly.addBatch();
+                    }
+                    FreeSpotsAggregate aggregate = FreeSpotsAggregate.of(row, 0, row.length);
+                    if (aggregate == null) continue;
+                    daily.setObject(1, date);
+                    daily.setShort(2, (short) parkingId);
+                    bindAggregate(daily, 3, aggregate);
+                    daily.addBatch();
+                }
+                hourly.executeBatch();
+                daily.executeBatch();
+            }
+        });
+    }
+
+    Set<LocalDate> fetchRolledUpDays() {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            Set<LocalDate> days = new HashSet<>();
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_DAYS_SQL);
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) days.add(resultSet.getObject(1, LocalDate.class));
+            }
+            return days;
+        });
+    }
+
+    /**
+     * @param parkingId the lot, negative for all of them
+     * @return one entry per lot with rollups, in lot order
+     */
+    List<HistoricPeriodRollupData> fetch(HistoricResolution resolution, LocalDate fromDate, LocalDate toDate, int parkingId) {
+        String sql = resolution == HistoricResolution.DAY ? SELECT_DAILY_SQL : SELECT_HOURLY_SQL;
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setObject(1, fromDate);
+                statement.setObject(2, toDate);
+                statement.setInt(3, parkingId);
+                statement.setInt(4, parkingId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return readRollups(resultSet);
+                }
+            }
+        });
+    }
+
+    private static List<HistoricPeriodRollupData> readRollups(ResultSet resultSet) throws SQLException {
+        List<HistoricPeriodRollupData> resultList = new ArrayList<>();
+        List<HistoricRollupEntry> entries = null;
+        int currentParkingId = -1;
+        while (resultSet.next()) {
+            int parkingId = resultSet.getShort(1);
+            if (parkingId != currentParkingId) {
+                entries = new ArrayList<>();
+                resultList.add(new HistoricPeriodRollupData((short) parkingId, entries));
+                currentParkingId = parkingId;
+            }
+            int hour = resultSet.getInt(3);
+            int sum = resultSet.getInt(6);
+            int samples = resultSet.getInt(7);
+            entries.add(new HistoricRollupEntry(
+                    resultSet.getObject(2, LocalDate.class),
+                    hour < 0 ? null : String.format("%02d:00", hour),
+                    resultSet.getShort(4),
+                    (double) sum / samples,
+                    resultSet.getShort(5)));
+        }
+        return resultList;
+    }
+
+    private static void bindAggregate(PreparedStatement statement, int index, FreeSpotsAggregate aggregate) throws SQLException {
+        statement.setShort(index, aggregate.min());
+        statement.setShort(index + 1, aggregate.max());
+        statement.setInt(index + 2, aggregate.sum());
+        statement.setShort(index + 3, (short) aggregate.samples());
+    }
+
+    // first slot starting at or after the hour, slots can be longer than an hour
+    static int firstSlotOfHour(int hour, int intervalLength) {
+        return (hour * 60 + intervalLength - 1) / intervalLength;
+    }
+
+    static int hourOfSlot(int slot, int intervalLength) {
+        return slot * intervalLength / 60;
+    }
+}
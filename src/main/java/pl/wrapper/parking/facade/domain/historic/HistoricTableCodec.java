@@ -0,0 +1,94 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Packed form of a day table, {@code short[parkings][slots]}:
+ * <pre>
+ * varint parking count, varint slot count
+ * per parking: runs of equal values until the row is full, each run
+ *     zigzag varint  value minus the value of the previous run (-1 before the first run of a row)
+ *     varint         run length
+ * </pre>
+ * Free spots change slowly and missing fetches come as {@code -1} gaps, so a row of 288 slots usually packs
+ * into a few dozen bytes.
+ */
+final class HistoricTableCodec {
+
+    private HistoricTableCodec() {}
+
+    static byte[] encode(short[][] table) {
+        int slotCount = table.length == 0 ? 0 : table[0].length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + table.length * 64);
+        writeVarInt(out, table.length);
+        writeVarInt(out, slotCount);
+        for (short[] row : table) {
+            if (row.length != slotCount) throw new IllegalArgumentException("Rows of a day table differ in length");
+            int previous = -1;
+            int slot = 0;
+            while (slot < slotCount) {
+                short value = row[slot];
+                int end = slot + 1;
+                while (end < slotCount && row[end] == value) end++;
+                writeVarInt(out, zigzag(value - previous));
+                writeVarInt(out, end - slot);
+                previous = value;
+                slot = end;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static short[][] decode(byte[] packed) {
+        ByteBuffer in = ByteBuffer.wrap(packed);
+        try {
+            int parkingCount = readVarInt(in);
+            int slotCount = readVarInt(in);
+            short[][] table = new short[parkingCount][slotCount];
+            for (short[] row : table) {
+                int previous = -1;
+                int slot = 0;
+                while (slot < slotCount) {
+                    int value = previous + unzigzag(readVarInt(in));
+                    int run = readVarInt(in);
+                    if (run <= 0 || run > slotCount - slot || value != (short) value)
+                        throw new IllegalArgumentException("Packed day table is corrupted");
+                    for (int end = slot + run; slot < end; slot++) row[slot] = (short) value;
+                    previous = value;
+                }
+            }
+            if (in.hasRemaining()) throw new IllegalArgumentException("Packed day table has trailing bytes");
+            return table;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Packed day table is truncated", e);
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Packed day table has a malformed varint");
+    }
+}
@@ -0,0 +1,50 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.NamedQueries;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A completed day moved out of {@link HistoricDataEntry}, with its table packed by {@link HistoricTableCodec}.
+ * Past days never change, so they are written once and only read afterwards.
+ */
+@Entity
+@Getter
+@Table(name = "historic_data_packed")
+@AllArgsConstructor
+@NoArgsConstructor
+@NamedQueries({
+        @NamedQuery(
+                name = "PackedHistoricData.periodQuery",
+                query = "SELECT data FROM PackedHistoricDataEntry data WHERE data.date >= :from AND data.date <= :to ORDER BY data.date"
+        ),
+        @NamedQuery(
+                name = "PackedHistoricData.fromQuery",
+                query = "SELECT data FROM PackedHistoricDataEntry data WHERE data.date >= :from ORDER BY data.date"
+        )
+})
+class PackedHistoricDataEntry {
+
+    @Id
+    @Column(name = "date", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "data", columnDefinition = "bytea", nullable = false)
+    private byte[] packedTable;
+
+    PackedHistoricDataEntry(HistoricDataEntry entry) {
+        this(entry.getDate(), HistoricTableCodec.encode(entry.getParkingInfo()));
+    }
+
+    HistoricDataEntry unpack() {
+        return new HistoricDataEntry(date, HistoricTableCodec.decode(packedTable));
+    }
+}
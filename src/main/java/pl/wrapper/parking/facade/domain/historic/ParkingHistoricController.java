@@ -1,5 +1,7 @@
 package pl.wrapper.parking.facade.domain.historic;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -19,13 +21,22 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import pl.wrapper.parking.facade.ParkingHistoricDataService;
 import pl.wrapper.parking.facade.dto.historicData.HistoricDayParkingData;
+import pl.wrapper.parking.facade.dto.historicData.HistoricGrouping;
+import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodAggregateData;
 import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodParkingData;
+import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodRollupData;
+import pl.wrapper.parking.facade.dto.historicData.HistoricResolution;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
 
+import static pl.wrapper.parking.infrastructure.web.PrettyPrintJsonHttpMessageConverter.isPrettyPrintRequested;
+
 @RestController
 @AllArgsConstructor
 @Slf4j
@@ -35,6 +46,12 @@ class ParkingHistoricController {
 
     private ParkingHistoricDataService parkingHistoricDataService;
 
+    private ObjectMapper objectMapper;
+
+    private HistoricCompactJsonWriter compactJsonWriter;
+
+    private HistoricBinaryWriter binaryWriter;
+
 
     @Operation(
             summary = "Get historic data for the given day and parking of given id",
@@ -43,7 +60,11 @@ class ParkingHistoricController {
                             name = "forDay",
                             description = "Date in ISO date format",
                             required = true,
-                            example = "2025-07-29")
+                            example = "2025-07-29"),
+                    @Parameter(
+                            name = "compact",
+                            description = "true for the compact form: startTime and intervalMinutes once, then a plain array of free spots per lot and day",
+                            example = "true")
             },
             responses = {
                     @ApiResponse(
@@ -58,9 +79,15 @@ class ParkingHistoricController {
                             description = "No data for the given parking lot for the given date")
             })
     @GetMapping(path = "/day/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<HistoricDayParkingData> getHistoricDataForDayAndId(
+    public ResponseEntity<?> getHistoricDataForDayAndId(
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam("forDay") LocalDate forDay,
+            @RequestParam(value = "compact", defaultValue = "false") boolean compact,
             @PathVariable(name = "id") @Min(1) @Max(5) Integer parkingId) {
+        if (compact) {
+            short[][] dataTable = parkingHistoricDataService.getTableForDay(forDay);
+            if (dataTable == null || parkingId >= dataTable.length) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(compactJsonWriter.day(forDay, dataTable, parkingId, parkingId + 1));
+        }
         HistoricDayParkingData dataForDay = parkingHistoricDataService.getDataForDay(forDay, parkingId);
         if (dataForDay == null) return ResponseEntity.notFound().build();
         return ResponseEntity.ok(dataForDay);
@@ -73,7 +100,11 @@ class ParkingHistoricController {
                             name = "forDay",
                             description = "Date in ISO date format",
                             required = true,
-                            example = "2025-07-29")
+                            example = "2025-07-29"),
+                    @Parameter(
+                            name = "compact",
+                            description = "true for the compact form: startTime and intervalMinutes once, then a plain array of free spots per lot and day",
+                            example = "true")
             },
             responses = {
                     @ApiResponse(
@@ -92,13 +123,47 @@ class ParkingHistoricController {
                     )
             })
     @GetMapping(path = "/day", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<HistoricDayParkingData>> getHistoricDataForDay(
-            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam("forDay") LocalDate forDay) {
+    public ResponseEntity<?> getHistoricDataForDay(
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam("forDay") LocalDate forDay,
+            @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        if (compact) {
+            short[][] dataTable = parkingHistoricDataService.getTableForDay(forDay);
+            if (dataTable == null) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(compactJsonWriter.day(forDay, dataTable, 0, dataTable.length));
+        }
         List<HistoricDayParkingData> dataForDay = parkingHistoricDataService.getDataForDay(forDay);
         if (dataForDay == null) return ResponseEntity.notFound().build();
         return ResponseEntity.ok(dataForDay);
     }
 
+    @Operation(
+            summary = "Get the stored table of the given day for all parking lots as binary, requested with Accept: application/octet-stream",
+            description = "One frame: int32 epoch day, int16 parking count, int16 slot count, int16 interval minutes, then int16 free spots row by row. Little-endian.",
+            parameters = {
+                    @Parameter(
+                            name = "forDay",
+                            description = "Date in ISO date format",
+                            required = true,
+                            example = "2025-07-29")
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Historic data retrieved successfully",
+                            content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No data for the given date"
+                    )
+            })
+    @GetMapping(path = "/day", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> getHistoricDataForDayBinary(
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam("forDay") LocalDate forDay) {
+        short[][] dataTable = parkingHistoricDataService.getTableForDay(forDay);
+        if (dataTable == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(binaryWriter.day(forDay, dataTable));
+    }
+
     @Operation(
             summary = "Get all available historic data for the given period for the given id, both ends inclusive. If no end data given, get until today.",
             parameters = {
@@ -110,7 +175,15 @@ class ParkingHistoricController {
                     @Parameter(
                             name = "toDate",
                             description = "Date in ISO date format",
-                            example = "2025-08-29")
+                            example = "2025-08-29"),
+                    @Parameter(
+                            name = "resolution",
+                            description = "SLOT (default) for every stored interval, HOUR or DAY for min/avg/max of free spots per hour or day of each lot",
+                            example = "HOUR"),
+                    @Parameter(
+                            name = "compact",
+                            description = "true for the compact form: startTime and intervalMinutes once, then a plain array of free spots per lot and day",
+                            example = "true")
             },
             responses = {
                     @ApiResponse(
@@ -119,19 +192,26 @@ class ParkingHistoricController {
                             content =
                             @Content(
                                     mediaType = MediaType.APPLICATION_JSON_VALUE,
-                                    schema = @Schema(implementation = HistoricPeriodParkingData.class))),
+                                    schema = @Schema(oneOf = {HistoricPeriodParkingData.class, HistoricPeriodRollupData.class}))),
                     @ApiResponse(
                             responseCode = "404",
                             description = "No data for the given parking lot for the given period")
             })
     @GetMapping(path = "/period/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<HistoricPeriodParkingData> getHistoricDataForPeriodAndId(
+    public ResponseEntity<?> getHistoricDataForPeriodAndId(
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam("fromDate") LocalDate fromDate,
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam(value = "toDate", required = false) LocalDate toDate,
+            @RequestParam(value = "resolution", defaultValue = "SLOT") HistoricResolution resolution,
+            @RequestParam(value = "compact", defaultValue = "false") boolean compact,
             @PathVariable(name = "id") @Min(1) @Max(5) Integer parkingId) {
-        HistoricPeriodParkingData dataForPeriod = parkingHistoricDataService.getDataForPeriod(fromDate, toDate, parkingId);
-        if (dataForPeriod == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(dataForPeriod);
+        if (resolution != HistoricResolution.SLOT) {
+            HistoricPeriodRollupData rollups = parkingHistoricDataService.getRollupsForPeriod(fromDate, toDate, parkingId, resolution);
+            if (rollups == null) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(rollups);
+        }
+        if (parkingHistoricDataService.getParkingCountForPeriod(fromDate, toDate) == 0) return ResponseEntity.notFound().build();
+        if (compact) return ResponseEntity.ok(compactJsonWriter.period(fromDate, toDate, parkingId, parkingId + 1));
+        return ResponseEntity.ok(streamPeriod(fromDate, toDate, parkingId, parkingId + 1, false));
     }
 
     @Operation(
@@ -145,7 +225,15 @@ class ParkingHistoricController {
                     @Parameter(
                             name = "toDate",
                             description = "Date in ISO date format",
-                            example = "2025-08-29")
+                            example = "2025-08-29"),
+                    @Parameter(
+                            name = "resolution",
+                            description = "SLOT (default) for every stored interval, HOUR or DAY for min/avg/max of free spots per hour or day of each lot",
+                            example = "HOUR"),
+                    @Parameter(
+                            name = "compact",
+                            description = "true for the compact form: startTime and intervalMinutes once, then a plain array of free spots per lot and day",
+                            example = "true")
             },
             responses = {
                     @ApiResponse(
@@ -157,19 +245,191 @@ class ParkingHistoricController {
                                     array =
                                     @ArraySchema(
                                             schema =
-                                            @Schema(implementation = HistoricPeriodParkingData.class)))),
+                                            @Schema(oneOf = {HistoricPeriodParkingData.class, HistoricPeriodRollupData.class})))),
                     @ApiResponse(
                             responseCode = "404",
                             description = "No data for the given period"
                     )
             })
     @GetMapping(path = "/period", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<HistoricPeriodParkingData>> getHistoricDataForPeriod(
+    public ResponseEntity<?> getHistoricDataForPeriod(
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam("fromDate") LocalDate fromDate,
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam(value = "toDate", required = false) LocalDate toDate,
+            @RequestParam(value = "resolution", defaultValue = "SLOT") HistoricResolution resolution,
+            @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        if (resolution != HistoricResolution.SLOT) {
+            List<HistoricPeriodRollupData> rollups = parkingHistoricDataService.getRollupsForPeriod(fromDate, toDate, resolution);
+            if (rollups == null) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(rollups);
+        }
+        int parkingCount = parkingHistoricDataService.getParkingCountForPeriod(fromDate, toDate);
+        if (parkingCount == 0) return ResponseEntity.notFound().build();
+        if (compact) return ResponseEntity.ok(compactJsonWriter.period(fromDate, toDate, 0, parkingCount));
+        return ResponseEntity.ok(streamPeriod(fromDate, toDate, 0, parkingCount, true));
+    }
+
+    @Operation(
+            summary = "Get the stored tables of the given period for all parking lots as binary, requested with Accept: application/octet-stream. Both ends inclusive, if no end data given, get until today.",
+            description = "One frame per day with data, in date order: int32 epoch day, int16 parking count, int16 slot count, int16 interval minutes, then int16 free spots row by row. Little-endian.",
+            parameters = {
+                    @Parameter(
+                            name = "fromDate",
+                            description = "Date in ISO date format",
+                            required = true,
+                            example = "2025-07-29"),
+                    @Parameter(
+                            name = "toDate",
+                            description = "Date in ISO date format",
+                            example = "2025-08-29")
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Historic data retrieved successfully",
+                            content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No data for the given period"
+                    )
+            })
+    @GetMapping(path = "/period", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> getHistoricDataForPeriodBinary(
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam("fromDate") LocalDate fromDate,
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam(value = "toDate", required = false) LocalDate toDate) {
-        List<HistoricPeriodParkingData> dataForPeriod = parkingHistoricDataService.getDataForPeriod(fromDate, toDate);
-        if (dataForPeriod == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(dataForPeriod);
+        if (parkingHistoricDataService.getParkingCountForPeriod(fromDate, toDate) == 0) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(binaryWriter.period(fromDate, toDate));
     }
 
+    @Operation(
+            summary = "Get min, average and max free spots, fill rate and full intervals of the given parking over the given period, both ends inclusive. If no end data given, aggregate until today.",
+            parameters = {
+                    @Parameter(
+                            name = "fromDate",
+                            description = "Date in ISO date format",
+                            required = true,
+                            example = "2025-02-24"),
+                    @Parameter(
+                            name = "toDate",
+                            description = "Date in ISO date format",
+                            example = "2025-06-30"),
+                    @Parameter(
+                            name = "groupBy",
+                            description = "PARKING (default) for one entry for the lot, SLOT_OF_DAY for one entry per interval of the day",
+                            example = "SLOT_OF_DAY")
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Historic data aggregated successfully",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = HistoricPeriodAggregateData.class))),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No data for the given parking lot for the given period")
+            })
+    @GetMapping(path = "/aggregate/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HistoricPeriodAggregateData> getAggregatesForPeriodAndId(
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam("fromDate") LocalDate fromDate,
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam(value = "toDate", required = false) LocalDate toDate,
+            @RequestParam(value = "groupBy", defaultValue = "PARKING") HistoricGrouping grouping,
+            @PathVariable(name = "id") @Min(1) @Max(5) Integer parkingId) {
+        HistoricPeriodAggregateData aggregates = parkingHistoricDataService.getAggregatesForPeriod(fromDate, toDate, parkingId, grouping);
+        if (aggregates == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(aggregates);
+    }
+
+    @Operation(
+            summary = "Get min, average and max free spots, fill rate and full intervals of all parking lots over the given period, both ends inclusive. If no end data given, aggregate until today.",
+            parameters = {
+                    @Parameter(
+                            name = "fromDate",
+                            description = "Date in ISO date format",
+                            required = true,
+                            example = "2025-02-24"),
+                    @Parameter(
+                            name = "toDate",
+                            description = "Date in ISO date format",
+                            example = "2025-06-30"),
+                    @Parameter(
+                            name = "groupBy",
+                            description = "PARKING (default) for one entry per lot, SLOT_OF_DAY for one entry per lot and interval of the day",
+                            example = "SLOT_OF_DAY")
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Historic data aggregated successfully",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    array =
+                                    @ArraySchema(
+                                            schema =
+                                            @Schema(implementation = HistoricPeriodAggregateData.class)))),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No data for the given period"
+                    )
+            })
+    @GetMapping(path = "/aggregate", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<HistoricPeriodAggregateData>> getAggregatesForPeriod(
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam("fromDate") LocalDate fromDate,
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam(value = "toDate", required = false) LocalDate toDate,
+            @RequestParam(value = "groupBy", defaultValue = "PARKING") HistoricGrouping grouping) {
+        List<HistoricPeriodAggregateData> aggregates = parkingHistoricDataService.getAggregatesForPeriod(fromDate, toDate, grouping);
+        if (aggregates == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(aggregates);
+    }
+
+    /**
+     * Writes {@link HistoricPeriodParkingData} of the given lots while the days are read, in one pass over the
+     * period. The first lot goes straight to the response, the others through {@link HistoricLotBuffers}, so memory
+     * stays bounded for any length of the period. The pretty flag is read on the request thread.
+     */
+    private StreamingResponseBody streamPeriod(LocalDate fromDate, LocalDate toDate, int fromParkingId, int toParkingId, boolean asArray) {
+        boolean pretty = isPrettyPrintRequested();
+        return out -> {
+            try (JsonGenerator json = objectMapper.createGenerator(out)) {
+                if (pretty) json.useDefaultPrettyPrinter();
+                if (asArray) json.writeStartArray();
+                try (HistoricLotBuffers lots = new HistoricLotBuffers(json, out, objectMapper, pretty,
+                        fromParkingId, toParkingId, HistoricLotBuffers.MEMORY_BYTES_PER_LOT)) {
+                    for (int parkingId = fromParkingId; parkingId < toParkingId; parkingId++)
+                        startParkingPeriod(lots.lot(parkingId), parkingId);
+                    writeDays(lots, fromDate, toDate, fromParkingId, toParkingId);
+                    for (int parkingId = fromParkingId; parkingId < toParkingId; parkingId++)
+                        endParkingPeriod(lots.lot(parkingId));
+                    lots.appendBuffered();
+                }
+                if (asArray) json.writeEndArray();
+            }
+        };
+    }
+
+    private void writeDays(HistoricLotBuffers lots, LocalDate fromDate, LocalDate toDate, int fromParkingId, int toParkingId) throws IOException {
+        try {
+            parkingHistoricDataService.forEachDayOfPeriod(fromDate, toDate, fromParkingId, toParkingId, (day, parkingId) -> {
+                try {
+                    lots.lot(parkingId).writeObject(day);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void startParkingPeriod(JsonGenerator json, int parkingId) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("parkingId", parkingId);
+        json.writeArrayFieldStart("dataList");
+    }
+
+    private static void endParkingPeriod(JsonGenerator json) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+    }
 }
@@ -4,14 +4,26 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import pl.wrapper.parking.facade.ParkingHistoricDataService;
 import pl.wrapper.parking.facade.dto.historicData.HistoricDayData;
 import pl.wrapper.parking.facade.dto.historicData.HistoricDayParkingData;
-import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodParkingData;
+import pl.wrapper.parking.facade.dto.historicData.HistoricGrouping;
+import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodAggregateData;
+import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodRollupData;
+import pl.wrapper.parking.facade.dto.historicData.HistoricResolution;
 import pl.wrapper.parking.facade.dto.historicData.TimestampEntry;
 import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
 import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
@@ -21,12 +33,28 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
+@Slf4j
 @Transactional(readOnly = true)
 class ParkingHistoricDataServiceImpl implements ParkingHistoricDataService {
 
+    private static final int STREAM_FETCH_SIZE = 64;
+
+    private static final int PACK_BATCH_DAYS = 32;
+
     @PersistenceContext
     private EntityManager em;
 
@@ -38,49 +66,204 @@ class ParkingHistoricDataServiceImpl implements ParkingHistoricDataService {
 
     private final List<String> formattedStartTimes;
 
-    public ParkingHistoricDataServiceImpl(PwrApiServerCaller pwrApiServerCaller, @Value("${historic.data-update.minutes}") Integer intervalLength) {
+    private final boolean packCompletedDays;
+
+    private final HistoricDayCache dayCache;
+
+    private final HistoricRollupStore rollupStore;
+
+    private final boolean backfillRollups;
+
+    private final HistoricDayMapper dayMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // the day whose row is known to exist with at least that many rows, storeNewData creates or grows it only then
+    private volatile StoredDay storedDay;
+
+    public ParkingHistoricDataServiceImpl(PwrApiServerCaller pwrApiServerCaller, @Value("${historic.data-update.minutes}") Integer intervalLength,
+                                          @Value("${historic.storage.packed}") Boolean packCompletedDays,
+                                          @Value("${historic.cache.max-bytes}") Long cacheMaxBytes,
+                                          HistoricRollupStore rollupStore,
+                                          @Value("${historic.rollup.backfill}") Boolean backfillRollups,
+                                          HistoricDayMapper dayMapper,
+                                          TransactionTemplate transactionTemplate) {
         this.pwrApiServerCaller = pwrApiServerCaller;
         this.intervalLength = intervalLength;
+        this.packCompletedDays = packCompletedDays;
+        this.dayCache = new HistoricDayCache(cacheMaxBytes);
+        this.rollupStore = rollupStore;
+        this.backfillRollups = backfillRollups;
+        this.dayMapper = dayMapper;
+        this.transactionTemplate = transactionTemplate;
         intervalCount = calculateTimeframesCount(intervalLength);
         this.formattedStartTimes = getFormattedStartTimes(intervalLength, intervalCount);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public List<HistoricDayParkingData> getDataForDay(LocalDate forDate) {
-        List<short[][]> fetchedData = (List<short[][]>) createAtQuery(forDate).getResultList();
-        if (fetchedData.isEmpty()) return null;
-        return parseTableForDay(fetchedData.getFirst(), forDate);
+        short[][] fetchedData = fetchTableForDay(forDate);
+        if (fetchedData == null) return null;
+        return parseTableForDay(fetchedData, forDate);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public HistoricDayParkingData getDataForDay(LocalDate forDate, int parkingId) {
-        List<short[][]> fetchedData = (List<short[][]>) createAtQuery(forDate).getResultList();
-        if (fetchedData.isEmpty()) return null;
-        return parseTableForDay(parkingId, fetchedData.getFirst(), forDate);
+        short[][] fetchedData = fetchTableForDay(forDate);
+        if (fetchedData == null) return null;
+        return parseTableForDay(parkingId, fetchedData, forDate);
     }
 
     @Override
-    public HistoricPeriodParkingData getDataForPeriod(LocalDate fromDate, LocalDate toDate, int parkingId) {
-        List<HistoricDataEntry> fetchedData = fetchDataForPeriod(fromDate, toDate);
-        if (fetchedData == null) return null;
-        return parseTableForPeriod(fetchedData, parkingId);
+    public HistoricPeriodRollupData getRollupsForPeriod(LocalDate fromDate, LocalDate toDate, int parkingId, HistoricResolution resolution) {
+        List<HistoricPeriodRollupData> rollups = rollupStore.fetch(resolution, fromDate, toDate == null ? LocalDate.now() : toDate, parkingId);
+        if (rollups.isEmpty()) return null;
+        return rollups.getFirst();
     }
 
     @Override
-    public List<HistoricPeriodParkingData> getDataForPeriod(LocalDate fromDate, LocalDate toDate) {
-        List<HistoricDataEntry> fetchedData = fetchDataForPeriod(fromDate, toDate);
-        if (fetchedData == null) return null;
-        return parseTableForPeriod(fetchedData);
+    public List<HistoricPeriodRollupData> getRollupsForPeriod(LocalDate fromDate, LocalDate toDate, HistoricResolution resolution) {
+        List<HistoricPeriodRollupData> rollups = rollupStore.fetch(resolution, fromDate, toDate == null ? LocalDate.now() : toDate, -1);
+        if (rollups.isEmpty()) return null;
+        return rollups;
+    }
+
+    @Override
+    public HistoricPeriodAggregateData getAggregatesForPeriod(LocalDate fromDate, LocalDate toDate, int parkingId, HistoricGrouping grouping) {
+        List<HistoricPeriodAggregateData> aggregates = aggregatePeriod(fromDate, toDate, parkingId, parkingId + 1, grouping);
+        if (aggregates.isEmpty()) return null;
+        return aggregates.getFirst();
+    }
+
+    @Override
+    public List<HistoricPeriodAggregateData> getAggregatesForPeriod(LocalDate fromDate, LocalDate toDate, HistoricGrouping grouping) {
+        List<HistoricPeriodAggregateData> aggregates = aggregatePeriod(fromDate, toDate, 0, Integer.MAX_VALUE, grouping);
+        if (aggregates.isEmpty()) return null;
+        return aggregates;
+    }
+
+    // one pass over the day tables, mostly served by the day cache; capacities are the last fetched ones
+    private List<HistoricPeriodAggregateData> aggregatePeriod(LocalDate fromDate, LocalDate toDate, int fromParkingId, int toParkingId, HistoricGrouping grouping) {
+        HistoricRangeAggregator aggregator = new HistoricRangeAggregator(grouping == HistoricGrouping.SLOT_OF_DAY, fromParkingId, toParkingId);
+        forEachDayTableOfPeriod(fromDate, toDate, aggregator);
+        int[] totalSpots = pwrApiServerCaller.currentSnapshot()
+                .map(snapshot -> {
+                    int[] capacities = new int[snapshot.parkings().stream().mapToInt(ParkingResponse::parkingId).max().orElse(-1) + 1];
+                    for (ParkingResponse parking : snapshot.parkings()) capacities[parking.parkingId()] = parking.totalSpots();
+                    return capacities;
+                })
+                .orElse(new int[0]);
+        return aggregator.result(totalSpots, formattedStartTimes);
+    }
+
+    @Override
+    public int getParkingCountForPeriod(LocalDate fromDate, LocalDate toDate) {
+        LocalDate today = LocalDate.now();
+        LocalDate lastDate = toDate == null || toDate.isAfter(today) ? today : toDate;
+        LocalDate date = fromDate;
+        for (; !date.isAfter(lastDate); date = date.plusDays(1)) {
+            short[][] cachedTable = dayCache.get(date, today);
+            if (cachedTable == null) break;
+            if (cachedTable != HistoricDayCache.NO_DATA) return cachedTable.length;
+        }
+        if (date.isAfter(lastDate)) return 0;
+        try (Stream<HistoricDataEntry> storedDays = streamStoredDays(date, toDate)) {
+            return storedDays.findFirst().map(entry -> entry.getParkingInfo().length).orElse(0);
+        }
+    }
+
+    @Override
+    public void forEachDayOfPeriod(LocalDate fromDate, LocalDate toDate, int parkingId, Consumer<HistoricDayData> consumer) {
+        forEachDayOfPeriod(fromDate, toDate, parkingId, parkingId + 1, (day, id) -> consumer.accept(day));
+    }
+
+    @Override
+    public void forEachDayOfPeriod(LocalDate fromDate, LocalDate toDate, int fromParkingId, int toParkingId, ObjIntConsumer<HistoricDayData> consumer) {
+        forEachDayTableOfPeriod(fromDate, toDate, (date, dataTable) -> {
+            for (int parkingId = fromParkingId; parkingId < Math.min(toParkingId, dataTable.length); parkingId++)
+                consumer.accept(new HistoricDayData(date, getTimestampedList(dataTable, parkingId)), parkingId);
+        });
+    }
+
+    @Override
+    public short[][] getTableForDay(LocalDate forDate) {
+        return fetchTableForDay(forDate);
+    }
+
+    @Override
+    public void forEachDayTableOfPeriod(LocalDate fromDate, LocalDate toDate, BiConsumer<LocalDate, short[][]> consumer) {
+        LocalDate today = LocalDate.now();
+        LocalDate lastDate = toDate == null || toDate.isAfter(today) ? today : toDate;
+        LocalDate date = fromDate;
+        for (; !date.isAfter(lastDate); date = date.plusDays(1)) {
+            short[][] cachedTable = dayCache.get(date, today);
+            if (cachedTable == null) break;
+            if (cachedTable != HistoricDayCache.NO_DATA) consumer.accept(date, cachedTable);
+        }
+        if (date.isAfter(lastDate)) return;
+
+        LocalDate expectedDate = date;
+        try (Stream<HistoricDataEntry> storedDays = streamStoredDays(date, toDate)) {
+            for (Iterator<HistoricDataEntry> days = storedDays.iterator(); days.hasNext(); ) {
+                HistoricDataEntry entry = days.next();
+                for (; expectedDate.isBefore(entry.getDate()); expectedDate = expectedDate.plusDays(1))
+                    dayCache.put(expectedDate, HistoricDayCache.NO_DATA, today);
+                dayCache.put(entry.getDate(), entry.getParkingInfo(), today);
+                expectedDate = entry.getDate().plusDays(1);
+                consumer.accept(entry.getDate(), entry.getParkingInfo());
+            }
+        }
+        for (; !expectedDate.isAfter(lastDate); expectedDate = expectedDate.plusDays(1))
+            dayCache.put(expectedDate, HistoricDayCache.NO_DATA, today);
+    }
+
+    short[][] fetchTableForDay(LocalDate forDate) {
+        LocalDate today = LocalDate.now();
+        short[][] cachedTable = dayCache.get(forDate, today);
+        if (cachedTable != null) return cachedTable == HistoricDayCache.NO_DATA ? null : cachedTable;
+        short[][] fetchedTable = loadTableForDay(forDate);
+        dayCache.put(forDate, fetchedTable == null ? HistoricDayCache.NO_DATA : fetchedTable, today);
+        return fetchedTable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private short[][] loadTableForDay(LocalDate forDate) {
+        List<short[][]> fetchedData = (List<short[][]>) createAtQuery(forDate).getResultList();
+        if (!fetchedData.isEmpty()) return fetchedData.getFirst();
+        PackedHistoricDataEntry packedEntry = em.find(PackedHistoricDataEntry.class, forDate);
+        return packedEntry == null ? null : HistoricTableCodec.decode(packedEntry.getPackedTable());
     }
 
-    List<HistoricDataEntry> fetchDataForPeriod(LocalDate fromDate, LocalDate toDate) {
-        List<HistoricDataEntry> fetchedData;
-        if (toDate == null) fetchedData = createFromQuery(fromDate).getResultList();
-        else fetchedData = createPeriodQuery(fromDate, toDate).getResultList();
-        if (fetchedData.isEmpty()) return null;
-        return fetchedData;
+    // both tables read through cursors, detached once read so the persistence context stays empty;
+    // long runs of packed days are unpacked on the day mapper's pool ahead of the consumer
+    private Stream<HistoricDataEntry> streamStoredDays(LocalDate fromDate, LocalDate toDate) {
+        Stream<PackedHistoricDataEntry> packedDays = streamPackedDataForPeriod(fromDate, toDate).map(packedEntry -> {
+            em.detach(packedEntry);
+            return packedEntry;
+        });
+        Stream<HistoricDataEntry> arrayDays = streamArrayDataForPeriod(fromDate, toDate).map(entry -> {
+            em.detach(entry);
+            return entry;
+        });
+        Iterator<HistoricDataEntry> unpackedDays = dayMapper.mapAhead(packedDays.iterator(), PackedHistoricDataEntry::unpack);
+        Iterator<HistoricDataEntry> mergedDays = new DateOrderedMerge(unpackedDays, arrayDays.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(mergedDays, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    packedDays.close();
+                    arrayDays.close();
+                });
+    }
+
+    Stream<PackedHistoricDataEntry> streamPackedDataForPeriod(LocalDate fromDate, LocalDate toDate) {
+        TypedQuery<PackedHistoricDataEntry> query = toDate == null
+                ? em.createNamedQuery("PackedHistoricData.fromQuery", PackedHistoricDataEntry.class).setParameter("from", fromDate)
+                : em.createNamedQuery("PackedHistoricData.periodQuery", PackedHistoricDataEntry.class).setParameter("from", fromDate).setParameter("to", toDate);
+        return query.setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE).setHint(HibernateHints.HINT_READ_ONLY, true).getResultStream();
+    }
+
+    Stream<HistoricDataEntry> streamArrayDataForPeriod(LocalDate fromDate, LocalDate toDate) {
+        TypedQuery<HistoricDataEntry> query = toDate == null ? createFromQuery(fromDate) : createPeriodQuery(fromDate, toDate);
+        return query.setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE).setHint(HibernateHints.HINT_READ_ONLY, true).getResultStream();
     }
 
     TypedQuery<HistoricDataEntry> createPeriodQuery(LocalDate fromDate, LocalDate toDate) {
@@ -124,44 +307,136 @@ class ParkingHistoricDataServiceImpl implements ParkingHistoricDataService {
         return entryList;
     }
 
-    private HistoricPeriodParkingData parseTableForPeriod(List<HistoricDataEntry> dataEntries, int parkingId) {
-        return new HistoricPeriodParkingData(
-                (short) parkingId,
-                dataEntries.stream()
-                        .map(data -> new HistoricDayData(data.getDate(), getTimestampedList(data.getParkingInfo(), parkingId)))
-                        .toList());
-    }
-
-    private List<HistoricPeriodParkingData> parseTableForPeriod(List<HistoricDataEntry> dataEntries) {
-        int parkingCount = dataEntries.getFirst().getParkingInfo().length;
-        List<List<HistoricDayData>> dataLists = new ArrayList<>(parkingCount + 1);
-        List<HistoricPeriodParkingData> resultList = new ArrayList<>(parkingCount + 1);
-        for (int i = 0; i < parkingCount; i++) dataLists.add(new ArrayList<>());
-
-        dataEntries.forEach(data -> {
-            short[][] dataTable = data.getParkingInfo();
-            LocalDate currentDate = data.getDate();
-            for (int i = 0; i < dataTable.length; i++)
-                dataLists.get(i).add(new HistoricDayData(currentDate, getTimestampedList(dataTable, i)));
-        });
-        for (int i = 0; i < parkingCount; i++)
-            resultList.add(new HistoricPeriodParkingData((short) i, dataLists.get(i)));
-        return resultList;
-    }
-
     @Scheduled(cron = "30 */${historic.data-update.minutes} * * * *")
     @Transactional
     void storeNewData() {
         List<ParkingResponse> fetchedData = pwrApiServerCaller.fetchParkingData();
+        if (fetchedData.isEmpty()) return;
         LocalDate today = LocalDate.now();
-        HistoricDataEntry entryForToday = em.find(HistoricDataEntry.class, today);
-        if (entryForToday == null){
-            entryForToday = new HistoricDataEntry(fetchedData.size(), intervalCount, today);
-            em.persist(entryForToday);
-        }
         int currentIntervalIndex = mapTimeToTimeframeIndex(LocalTime.now(), intervalLength);
+
+        int firstParkingId = Integer.MAX_VALUE;
+        int lastParkingId = Integer.MIN_VALUE;
         for (ParkingResponse parkingData : fetchedData) {
-            entryForToday.addValue(parkingData.parkingId(), currentIntervalIndex, parkingData.freeSpots());
+            firstParkingId = Math.min(firstParkingId, parkingData.parkingId());
+            lastParkingId = Math.max(lastParkingId, parkingData.parkingId());
+        }
+        // lots missing from the fetch between the first and the last one get the "no data" value of a fresh slot
+        short[] freeSpots = new short[lastParkingId - firstParkingId + 1];
+        Arrays.fill(freeSpots, (short) -1);
+        for (ParkingResponse parkingData : fetchedData)
+            freeSpots[parkingData.parkingId() - firstParkingId] = (short) parkingData.freeSpots();
+
+        // row i holds lot id i, lot ids start at 1 so row 0 stays empty
+        int parkingCount = lastParkingId + 1;
+        int fromRow = firstParkingId;
+        StoredDay known = storedDay;
+        boolean knownRows = known != null && known.date().equals(today) && parkingCount <= known.parkingCount();
+        em.unwrap(Session.class).doWork(connection -> {
+            if (knownRows && HistoricDayStatements.updateSlot(connection, today, currentIntervalIndex, fromRow, freeSpots) > 0) return;
+            HistoricDayStatements.createDay(connection, today, parkingCount, intervalCount);
+            HistoricDayStatements.growDay(connection, today, parkingCount, intervalCount);
+            HistoricDayStatements.updateSlot(connection, today, currentIntervalIndex, fromRow, freeSpots);
+        });
+
+        // after a restart or a new lot today's table is read once, every other fetch only changes the cached copy
+        short[][] cachedToday = dayCache.get(today, today);
+        short[][] todayTable = cachedToday == null || cachedToday.length < parkingCount
+                ? loadTableForDay(today)
+                : HistoricDayCache.withSlot(cachedToday, currentIntervalIndex, fromRow, freeSpots);
+        int currentHour = HistoricRollupStore.hourOfSlot(currentIntervalIndex, intervalLength);
+        rollupStore.store(today, todayTable, intervalLength, currentHour, currentHour + 1);
+        int storedParkingCount = Math.max(parkingCount, knownRows ? known.parkingCount() : 0);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                storedDay = new StoredDay(today, storedParkingCount);
+                dayCache.putToday(today, todayTable);
+            }
+        });
+    }
+
+    private record StoredDay(LocalDate date, int parkingCount) {}
+
+    // days stored before the rollups existed, or while the app was down at the end of the day, get theirs here
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    void backfillRollups() {
+        if (!backfillRollups) return;
+        Set<LocalDate> rolledUpDays = rollupStore.fetchRolledUpDays();
+        LocalDate today = LocalDate.now();
+        int backfilledDays = 0;
+        try (Stream<HistoricDataEntry> storedDays = streamStoredDays(LocalDate.EPOCH, null)) {
+            for (Iterator<HistoricDataEntry> days = storedDays.iterator(); days.hasNext(); ) {
+                HistoricDataEntry entry = days.next();
+                if (!entry.getDate().isBefore(today) || rolledUpDays.contains(entry.getDate())) continue;
+                rollupStore.store(entry.getDate(), entry.getParkingInfo(), intervalLength, 0, 24);
+                backfilledDays++;
+            }
+        }
+        if (backfilledDays > 0) log.info("Backfilled rollups of {} historic days", backfilledDays);
+    }
+
+    // completed days never change again; on startup this also moves every day stored before packing was enabled.
+    // Every batch commits on its own, so a migration of years of days holds one batch in memory at a time
+    @Scheduled(cron = "0 10 0 * * *")
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void packCompletedDays() {
+        if (!packCompletedDays) return;
+        LocalDate today = LocalDate.now();
+        int packedDays = 0;
+        int batchDays;
+        do {
+            batchDays = transactionTemplate.execute(status -> packOldestDays(today));
+            packedDays += batchDays;
+        } while (batchDays == PACK_BATCH_DAYS);
+        if (packedDays > 0) log.info("Packed {} completed historic days", packedDays);
+    }
+
+    // packed days are removed from historic_data, so the next batch starts at the oldest day left
+    private int packOldestDays(LocalDate before) {
+        List<HistoricDataEntry> days = em.createNamedQuery("HistoricData.beforeQuery", HistoricDataEntry.class)
+                .setParameter("before", before)
+                .setMaxResults(PACK_BATCH_DAYS)
+                .getResultList();
+        for (HistoricDataEntry entry : days) {
+            em.persist(new PackedHistoricDataEntry(entry));
+            em.remove(entry);
+        }
+        return days.size();
+    }
+
+    private static final class DateOrderedMerge implements Iterator<HistoricDataEntry> {
+        private final Iterator<HistoricDataEntry> first;
+        private final Iterator<HistoricDataEntry> second;
+        private HistoricDataEntry nextFirst;
+        private HistoricDataEntry nextSecond;
+
+        DateOrderedMerge(Iterator<HistoricDataEntry> first, Iterator<HistoricDataEntry> second) {
+            this.first = first;
+            this.second = second;
+            this.nextFirst = first.hasNext() ? first.next() : null;
+            this.nextSecond = second.hasNext() ? second.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextFirst != null || nextSecond != null;
+        }
+
+        @Override
+        public HistoricDataEntry next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            HistoricDataEntry result;
+            if (nextSecond == null || nextFirst != null && nextFirst.getDate().isBefore(nextSecond.getDate())) {
+                result = nextFirst;
+                nextFirst = first.hasNext() ? first.next() : null;
+            } else {
+                result = nextSecond;
+                nextSecond = second.hasNext() ? second.next() : null;
+            }
+            return result;
         }
     }
 
@@ -8,6 +8,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
@@ -20,19 +22,21 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import pl.wrapper.parking.facade.ParkingService;
+import pl.wrapper.parking.facade.dto.main.NearbyParking;
 import pl.wrapper.parking.infrastructure.error.ErrorWrapper;
+import pl.wrapper.parking.infrastructure.web.SerializedResponseCache;
 import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
-import static pl.wrapper.parking.infrastructure.error.HandleResult.handleResult;
-
 @RestController
 @RequiredArgsConstructor
 @Slf4j
 @Tag(name = "Parking API Main", description = "Endpoints for managing parking-related operations with up-to-date information")
 class ParkingController {
     private final ParkingService parkingService;
+    private final SerializedResponseCache responseCache;
 
     @Operation(summary = "Get list of parking lots with free spots from all/opened/closed.")
     @ApiResponse(
@@ -43,10 +47,13 @@ class ParkingController {
                     mediaType = "application/json",
                     array = @ArraySchema(schema = @Schema(implementation = ParkingResponse.class))))
     @GetMapping(path = "/free", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<ParkingResponse>> getAllParkingWithFreeSpots(
+    public Mono<ResponseEntity<?>> getAllParkingWithFreeSpots(
             @Parameter(description = "search in opened parking lots") @RequestParam(required = false) Boolean opened) {
         log.info("Finding all parking with free spots");
-        return new ResponseEntity<>(parkingService.getAllWithFreeSpots(opened), HttpStatus.OK);
+        Mono<List<ParkingResponse>> parkings = parkingService.getAllWithFreeSpots(opened);
+        // filtering by opening hours depends on the current time, only the unfiltered list belongs to the snapshot
+        if (opened == null) return responseCache.ok(parkings);
+        return parkings.map(found -> new ResponseEntity<>(found, HttpStatus.OK));
     }
 
     @Operation(summary = "Get parking lot with the most free spots from all/opened/closed parking lots.")
@@ -60,11 +67,11 @@ class ParkingController {
             description = "parking not found",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorWrapper.class)))
     @GetMapping(path = "/free/top", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> getParkingWithTheMostFreeSpots(
+    public Mono<ResponseEntity<?>> getParkingWithTheMostFreeSpots(
             @Parameter(description = "search in opened parking lots") @RequestParam(required = false) Boolean opened,
             HttpServletRequest request) {
         log.info("Finding parking with the most free spots");
-        return handleResult(parkingService.getWithTheMostFreeSpots(opened), HttpStatus.OK, request.getRequestURI());
+        return responseCache.handleCachedResult(parkingService.getWithTheMostFreeSpots(opened), HttpStatus.OK, request.getRequestURI());
     }
 
     @Operation(
@@ -92,10 +99,74 @@ class ParkingController {
                                     schema = @Schema(implementation = ErrorWrapper.class)))
             })
     @GetMapping(path = "/address", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> getClosestParking(
+    public Mono<ResponseEntity<?>> getClosestParking(
             @RequestParam("address") String address, HttpServletRequest request) {
         log.info("Finding closest parking for address: {}", address);
-        return handleResult(parkingService.getClosestParking(address), HttpStatus.OK, request.getRequestURI());
+        return responseCache.handleCachedResult(parkingService.getClosestParking(address), HttpStatus.OK, request.getRequestURI());
+    }
+
+    @Operation(summary = "Get the given number of parking lots closest to a location, nearest first.")
+    @ApiResponse(
+            responseCode = "200",
+            description = "list of parking lots with their distance",
+            content =
+            @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = NearbyParking.class))))
+    @GetMapping(path = "/nearest", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<NearbyParking>>> getNearestParking(
+            @Parameter(description = "latitude", example = "51.1079") @RequestParam @DecimalMin("-90") @DecimalMax("90")
+                    Double lat,
+            @Parameter(description = "longitude", example = "17.0385") @RequestParam @DecimalMin("-180") @DecimalMax("180")
+                    Double lon,
+            @Parameter(description = "number of parking lots") @RequestParam(defaultValue = "3") @Min(1) @Max(50)
+                    Integer count) {
+        log.info("Finding {} parking lots nearest to {}, {}", count, lat, lon);
+        return parkingService.getNearest(lat, lon, count).map(found -> new ResponseEntity<>(found, HttpStatus.OK));
+    }
+
+    @Operation(summary = "Get parking lots within the given radius from a location, nearest first.")
+    @ApiResponse(
+            responseCode = "200",
+            description = "list of parking lots with their distance",
+            content =
+            @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = NearbyParking.class))))
+    @GetMapping(path = "/within", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<NearbyParking>>> getParkingWithinRadius(
+            @Parameter(description = "latitude", example = "51.1079") @RequestParam @DecimalMin("-90") @DecimalMax("90")
+                    Double lat,
+            @Parameter(description = "longitude", example = "17.0385") @RequestParam @DecimalMin("-180") @DecimalMax("180")
+                    Double lon,
+            @Parameter(description = "radius in kilometres") @RequestParam @DecimalMin("0") @DecimalMax("50")
+                    Double radius) {
+        log.info("Finding parking lots within {} km from {}, {}", radius, lat, lon);
+        return parkingService.getWithinRadius(lat, lon, radius).map(found -> new ResponseEntity<>(found, HttpStatus.OK));
+    }
+
+    @Operation(summary = "Get parking lots inside a map viewport.")
+    @ApiResponse(
+            responseCode = "200",
+            description = "list of parking lots",
+            content =
+            @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = ParkingResponse.class))))
+    @GetMapping(path = "/area", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<ParkingResponse>>> getParkingInArea(
+            @Parameter(description = "south edge latitude") @RequestParam @DecimalMin("-90") @DecimalMax("90")
+                    Double minLat,
+            @Parameter(description = "west edge longitude") @RequestParam @DecimalMin("-180") @DecimalMax("180")
+                    Double minLon,
+            @Parameter(description = "north edge latitude") @RequestParam @DecimalMin("-90") @DecimalMax("90")
+                    Double maxLat,
+            @Parameter(description = "east edge longitude") @RequestParam @DecimalMin("-180") @DecimalMax("180")
+                    Double maxLon) {
+        log.info("Finding parking lots in area {}, {} - {}, {}", minLat, minLon, maxLat, maxLon);
+        return parkingService
+                .getInArea(minLat, minLon, maxLat, maxLon)
+                .map(found -> new ResponseEntity<>(found, HttpStatus.OK));
     }
 
     @Operation(summary = "Fetch a parking lot by name.")
@@ -109,12 +180,12 @@ class ParkingController {
             description = "parking not found",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorWrapper.class)))
     @GetMapping(path = "/name", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> getParkingByName(
+    public Mono<ResponseEntity<?>> getParkingByName(
             @Parameter(description = "parking name") @RequestParam String name,
             @Parameter(description = "is parking opened") @RequestParam(required = false) Boolean opened,
             HttpServletRequest request) {
         log.info("Received request: get parking by name: {}", name);
-        return handleResult(parkingService.getByName(name, opened), HttpStatus.OK, request.getRequestURI());
+        return responseCache.handleCachedResult(parkingService.getByName(name, opened), HttpStatus.OK, request.getRequestURI());
     }
 
     @Operation(summary = "Fetch a parking lot by id.")
@@ -128,12 +199,12 @@ class ParkingController {
             description = "parking not found",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorWrapper.class)))
     @GetMapping(path = "/id", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> getParkingById(
+    public Mono<ResponseEntity<?>> getParkingById(
             @Parameter(description = "parking id") @RequestParam Integer id,
             @Parameter(description = "is parking opened") @RequestParam(required = false) Boolean opened,
             HttpServletRequest request) {
         log.info("Received request: get parking by id: {}", id);
-        return handleResult(parkingService.getById(id, opened), HttpStatus.OK, request.getRequestURI());
+        return responseCache.handleCachedResult(parkingService.getById(id, opened), HttpStatus.OK, request.getRequestURI());
     }
 
     @Operation(summary = "Fetch a parking lot by symbol.")
@@ -147,12 +218,12 @@ class ParkingController {
             description = "parking not found",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorWrapper.class)))
     @GetMapping(path = "/symbol", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> getParkingBySymbol(
+    public Mono<ResponseEntity<?>> getParkingBySymbol(
             @Parameter(description = "parking symbol") @RequestParam String symbol,
             @Parameter(description = "is parking opened") @RequestParam(required = false) Boolean opened,
             HttpServletRequest request) {
         log.info("Received request: get parking by symbol: {}", symbol);
-        return handleResult(parkingService.getBySymbol(symbol, opened), HttpStatus.OK, request.getRequestURI());
+        return responseCache.handleCachedResult(parkingService.getBySymbol(symbol, opened), HttpStatus.OK, request.getRequestURI());
     }
 
     @Operation(summary = "Get list of parking lots by name/id/symbol/if opened/has free spots")
@@ -164,7 +235,7 @@ class ParkingController {
                     mediaType = "application/json",
                     array = @ArraySchema(schema = @Schema(implementation = ParkingResponse.class))))
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<ParkingResponse>> getParkingByParams(
+    public Mono<ResponseEntity<?>> getParkingByParams(
             @Parameter(description = "parking symbol") @RequestParam(required = false) String symbol,
             @Parameter(description = "parking id") @RequestParam(required = false) Integer id,
             @Parameter(description = "parking name") @RequestParam(required = false) String name,
@@ -176,7 +247,10 @@ class ParkingController {
                 id,
                 name,
                 freeSpots);
-        return new ResponseEntity<>(parkingService.getByParams(symbol, id, name, opened, freeSpots), HttpStatus.OK);
+        Mono<List<ParkingResponse>> parkings = parkingService.getByParams(symbol, id, name, opened, freeSpots);
+        if (symbol == null && id == null && name == null && opened == null && freeSpots == null)
+            return responseCache.ok(parkings);
+        return parkings.map(found -> new ResponseEntity<>(found, HttpStatus.OK));
     }
 
     @Operation(summary = "Fetch the chart for today for parking lot of given Id.")
@@ -186,8 +260,8 @@ class ParkingController {
             content =
             @Content(mediaType = "application/json"))
     @GetMapping(path = "/chart/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Object> getChartForToday(@PathVariable("id") @Min(1) @Max(5) Integer id) {
-        return ResponseEntity.ok(parkingService.getChartForToday(id));
+    public Mono<ResponseEntity<?>> getChartForToday(@PathVariable("id") @Min(1) @Max(5) Integer id) {
+        return responseCache.ok(parkingService.getChartForToday(id));
     }
 
     @Operation(summary = "Fetch the chart for today for parking lot of given Id.")
@@ -197,8 +271,8 @@ class ParkingController {
             content =
             @Content(mediaType = "application/json"))
     @GetMapping(path = "/chart", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<Object>> getAllChartsForToday() {
-        return ResponseEntity.ok(parkingService.getAllChartsForToday());
+    public Mono<ResponseEntity<?>> getAllChartsForToday() {
+        return responseCache.ok(parkingService.getAllChartsForToday());
     }
 
 }
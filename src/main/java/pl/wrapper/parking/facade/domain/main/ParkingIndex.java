@@ -0,0 +1,171 @@
+package pl.wrapper.parking.facade.domain.main;
+
+import org.springframework.lang.Nullable;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lookup structure compiled once per fetched parking list. Lowercase symbols and names are computed here
+ * instead of on every request, lots are addressable by id, symbol and name, the free spots order is
+ * sorted up front and locations are indexed in a {@link ParkingSpatialIndex}.
+ */
+final class ParkingIndex {
+
+    private final List<ParkingResponse> source;
+    private final int[] positionById;
+    private final Map<String, ParkingResponse> bySymbol;
+    private final Map<String, ParkingResponse> byName;
+    private final String[] lowerSymbols;
+    private final String[] lowerNames;
+    private final List<ParkingResponse> withFreeSpots;
+    private final List<ParkingResponse> byFreeSpotsDescending;
+    private final ParkingSpatialIndex spatialIndex;
+
+    private ParkingIndex(List<ParkingResponse> source) {
+        this.source = source;
+        int size = source.size();
+        int maxId = 0;
+        for (ParkingResponse parking : source) maxId = Math.max(maxId, parking.parkingId());
+
+        positionById = new int[maxId + 1];
+        Arrays.fill(positionById, -1);
+        bySymbol = HashMap.newHashMap(size);
+        byName = HashMap.newHashMap(size);
+        lowerSymbols = new String[size];
+        lowerNames = new String[size];
+        List<ParkingResponse> free = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ParkingResponse parking = source.get(i);
+            int id = parking.parkingId();
+            if (id >= 0 && positionById[id] < 0) positionById[id] = i;
+            lowerSymbols[i] = lowerCase(parking.symbol());
+            lowerNames[i] = lowerCase(parking.name());
+            if (lowerSymbols[i] != null) bySymbol.putIfAbsent(lowerSymbols[i].strip(), parking);
+            if (lowerNames[i] != null) byName.putIfAbsent(lowerNames[i].strip(), parking);
+            if (parking.freeSpots() > 0) free.add(parking);
+        }
+        withFreeSpots = List.copyOf(free);
+
+        // stable sort, so on equal free spots the lot listed first wins like it did with Stream.max
+        List<ParkingResponse> sorted = new ArrayList<>(source);
+        sorted.sort(Comparator.comparingInt(ParkingResponse::freeSpots).reversed());
+        byFreeSpotsDescending = List.copyOf(sorted);
+        spatialIndex = new ParkingSpatialIndex(source);
+    }
+
+    static ParkingIndex of(List<ParkingResponse> parkings) {
+        return new ParkingIndex(parkings);
+    }
+
+    boolean isBuiltFrom(List<ParkingResponse> parkings) {
+        return source == parkings;
+    }
+
+    ParkingSpatialIndex spatial() {
+        return spatialIndex;
+    }
+
+    Optional<ParkingResponse> findById(int id, @Nullable Boolean opened) {
+        int position = positionOf(id);
+        if (position < 0) return Optional.empty();
+        ParkingResponse parking = source.get(position);
+        return matchesOpened(parking, opened) ? Optional.of(parking) : Optional.empty();
+    }
+
+    // an exact (case insensitive) symbol wins, otherwise the first lot whose symbol is part of the query
+    Optional<ParkingResponse> findBySymbol(String symbol, @Nullable Boolean opened) {
+        ParkingResponse exact = bySymbol.get(symbol.strip().toLowerCase(Locale.ROOT));
+        if (exact != null && matchesOpened(exact, opened)) return Optional.of(exact);
+        return findFirst(symbol, null, opened);
+    }
+
+    Optional<ParkingResponse> findByName(String name, @Nullable Boolean opened) {
+        ParkingResponse exact = byName.get(name.strip().toLowerCase(Locale.ROOT));
+        if (exact != null && matchesOpened(exact, opened)) return Optional.of(exact);
+        return findFirst(null, name, opened);
+    }
+
+    Optional<ParkingResponse> findWithTheMostFreeSpots(@Nullable Boolean opened) {
+        for (ParkingResponse parking : byFreeSpotsDescending)
+            if (matchesOpened(parking, opened)) return Optional.of(parking);
+        return Optional.empty();
+    }
+
+    List<ParkingResponse> findWithFreeSpots(@Nullable Boolean opened) {
+        if (opened == null) return withFreeSpots;
+        List<ParkingResponse> result = new ArrayList<>();
+        for (ParkingResponse parking : withFreeSpots) if (parking.isOpened() == opened) result.add(parking);
+        return result;
+    }
+
+    List<ParkingResponse> filter(
+            @Nullable String symbol,
+            @Nullable Integer id,
+            @Nullable String name,
+            @Nullable Boolean opened,
+            @Nullable Boolean hasFreeSpots) {
+        if (symbol == null && id == null && name == null && opened == null && hasFreeSpots == null) return source;
+        List<ParkingResponse> result = new ArrayList<>();
+        if (id != null) {
+            int position = positionOf(id);
+            if (position >= 0 && matches(source.get(position), position, symbol, name, opened, hasFreeSpots))
+                result.add(source.get(position));
+            return result;
+        }
+        for (int i = 0; i < source.size(); i++) {
+            ParkingResponse parking = source.get(i);
+            if (matches(parking, i, symbol, name, opened, hasFreeSpots)) result.add(parking);
+        }
+        return result;
+    }
+
+    private Optional<ParkingResponse> findFirst(@Nullable String symbol, @Nullable String name, @Nullable Boolean opened) {
+        for (int i = 0; i < source.size(); i++) {
+            ParkingResponse parking = source.get(i);
+            if (matches(parking, i, symbol, name, opened, null)) return Optional.of(parking);
+        }
+        return Optional.empty();
+    }
+
+    private boolean matches(
+            ParkingResponse parking,
+            int position,
+            @Nullable String symbol,
+            @Nullable String name,
+            @Nullable Boolean opened,
+            @Nullable Boolean hasFreeSpots) {
+        if (hasFreeSpots != null && hasFreeSpots != (parking.freeSpots() > 0)) return false;
+        if (symbol != null && !containsIgnoreCase(symbol, lowerSymbols[position])) return false;
+        if (name != null && !containsIgnoreCase(name, lowerNames[position])) return false;
+        return matchesOpened(parking, opened);
+    }
+
+    private int positionOf(int id) {
+        return id < 0 || id >= positionById.length ? -1 : positionById[id];
+    }
+
+    private static boolean matchesOpened(ParkingResponse parking, @Nullable Boolean opened) {
+        return opened == null || parking.isOpened() == opened;
+    }
+
+    // query.toLowerCase().contains(needle) without lowercasing the query
+    private static boolean containsIgnoreCase(String query, @Nullable String lowerNeedle) {
+        if (lowerNeedle == null) return false;
+        int last = query.length() - lowerNeedle.length();
+        for (int i = 0; i <= last; i++) if (query.regionMatches(true, i, lowerNeedle, 0, lowerNeedle.length())) return true;
+        return false;
+    }
+
+    @Nullable
+    private static String lowerCase(@Nullable String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,238 @@
+package pl.wrapper.parking.facade.domain.main;
+
+import pl.wrapper.parking.facade.dto.main.NearbyParking;
+import pl.wrapper.parking.pwrResponseHandler.dto.Address;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Static 2-d tree over parking lot coordinates, built once per snapshot. Lots are placed on an
+ * equirectangular plane (kilometres, scaled by the cosine of their mean latitude), so the tree works with
+ * plain squared distances. The plane only selects candidates, with a margin covering its distortion over the
+ * indexed latitudes; results are ranked and cut by the exact haversine distance. Meant for city scale
+ * data, lots across the antimeridian or near the poles are not handled.
+ */
+final class ParkingSpatialIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371;
+    // planar distance error that the latitude scaling does not cover (curvature over tens of kilometres)
+    private static final double CURVATURE_MARGIN = 0.01;
+
+    private final List<ParkingResponse> lots;
+    private final double[] x;
+    private final double[] y;
+    private final double[] latitude;
+    private final double[] longitude;
+    // implicit tree: the median of every range is its node, left half below, right half above it
+    private final int[] tree;
+    private final double referenceCos;
+    private final double minLatitude;
+    private final double maxLatitude;
+
+    ParkingSpatialIndex(List<ParkingResponse> parkings) {
+        List<ParkingResponse> located = new ArrayList<>();
+        double latitudeSum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (ParkingResponse parking : parkings) {
+            Address address = parking.address();
+            if (address == null || !Float.isFinite(address.geoLatitude()) || !Float.isFinite(address.geoLongitude()))
+                continue;
+            located.add(parking);
+            latitudeSum += address.geoLatitude();
+            min = Math.min(min, address.geoLatitude());
+            max = Math.max(max, address.geoLatitude());
+        }
+
+        int size = located.size();
+        lots = List.copyOf(located);
+        referenceCos = size == 0 ? 1 : Math.cos(Math.toRadians(latitudeSum / size));
+        minLatitude = min;
+        maxLatitude = max;
+        x = new double[size];
+        y = new double[size];
+        latitude = new double[size];
+        longitude = new double[size];
+        tree = new int[size];
+        for (int i = 0; i < size; i++) {
+            Address address = lots.get(i).address();
+            latitude[i] = address.geoLatitude();
+            longitude[i] = address.geoLongitude();
+            x[i] = projectX(longitude[i]);
+            y[i] = projectY(latitude[i]);
+            tree[i] = i;
+        }
+        build(0, size, 0);
+    }
+
+    List<NearbyParking> nearest(double lat, double lon, int k) {
+        if (lots.isEmpty() || k <= 0) return List.of();
+        double qx = projectX(lon);
+        double qy = projectY(lat);
+
+        int[] best = new int[Math.min(k, lots.size())];
+        double[] bestDistance = new double[best.length];
+        int found = nearest(0, lots.size(), 0, qx, qy, best, bestDistance, 0);
+
+        // the k planar neighbours bound the exact k-th distance, everything that may be closer is re-ranked
+        double limit = 0;
+        for (int i = 0; i < found; i++) limit = Math.max(limit, haversine(lat, lon, best[i]));
+        List<NearbyParking> result = within(lat, lon, limit);
+        return result.size() > k ? result.subList(0, k) : result;
+    }
+
+    List<NearbyParking> within(double lat, double lon, double radiusKm) {
+        List<NearbyParking> result = new ArrayList<>();
+        if (lots.isEmpty() || radiusKm < 0) return result;
+        double planarRadius = radiusKm * margin(lat);
+        within(0, lots.size(), 0, projectX(lon), projectY(lat), planarRadius * planarRadius, candidate -> {
+            double distance = haversine(lat, lon, candidate);
+            if (distance <= radiusKm) result.add(new NearbyParking(lots.get(candidate), distance));
+        });
+        result.sort(Comparator.comparingDouble(NearbyParking::distanceKm));
+        return result;
+    }
+
+    List<ParkingResponse> inArea(double minLat, double minLon, double maxLat, double maxLon) {
+        List<ParkingResponse> result = new ArrayList<>();
+        if (lots.isEmpty()) return result;
+        // the projection is linear in both axes, so the viewport stays an axis aligned box
+        inArea(0, lots.size(), 0, projectX(minLon), projectY(minLat), projectX(maxLon), projectY(maxLat), result);
+        result.sort(Comparator.comparingInt(ParkingResponse::parkingId));
+        return result;
+    }
+
+    private int nearest(
+            int from, int to, int depth, double qx, double qy, int[] best, double[] bestDistance, int found) {
+        if (from >= to) return found;
+        int mid = (from + to) >>> 1;
+        int node = tree[mid];
+        double dx = x[node] - qx;
+        double dy = y[node] - qy;
+        found = offer(node, dx * dx + dy * dy, best, bestDistance, found);
+
+        double axisDistance = depth % 2 == 0 ? qx - x[node] : qy - y[node];
+        boolean leftFirst = axisDistance < 0;
+        found = leftFirst
+                ? nearest(from, mid, depth + 1, qx, qy, best, bestDistance, found)
+                : nearest(mid + 1, to, depth + 1, qx, qy, best, bestDistance, found);
+        if (found < best.length || axisDistance * axisDistance < bestDistance[found - 1])
+            found = leftFirst
+                    ? nearest(mid + 1, to, depth + 1, qx, qy, best, bestDistance, found)
+                    : nearest(from, mid, depth + 1, qx, qy, best, bestDistance, found);
+        return found;
+    }
+
+    // keeps best[0..found) ordered by distance, k is small so insertion beats a heap
+    private static int offer(int node, double distance, int[] best, double[] bestDistance, int found) {
+        if (found == best.length && distance >= bestDistance[found - 1]) return found;
+        int position = found == best.length ? found - 1 : found++;
+        while (position > 0 && bestDistance[position - 1] > distance) {
+            best[position] = best[position - 1];
+            bestDistance[position] = bestDistance[position - 1];
+            position--;
+        }
+        best[position] = node;
+        bestDistance[position] = distance;
+        return found;
+    }
+
+    private void within(int from, int to, int depth, double qx, double qy, double radiusSquared, IntSink sink) {
+        if (from >= to) return;
+        int mid = (from + to) >>> 1;
+        int node = tree[mid];
+        double dx = x[node] - qx;
+        double dy = y[node] - qy;
+        if (dx * dx + dy * dy <= radiusSquared) sink.accept(node);
+
+        double axisDistance = depth % 2 == 0 ? qx - x[node] : qy - y[node];
+        if (axisDistance <= 0 || axisDistance * axisDistance <= radiusSquared)
+            within(from, mid, depth + 1, qx, qy, radiusSquared, sink);
+        if (axisDistance >= 0 || axisDistance * axisDistance <= radiusSquared)
+            within(mid + 1, to, depth + 1, qx, qy, radiusSquared, sink);
+    }
+
+    private void inArea(
+            int from, int to, int depth, double minX, double minY, double maxX, double maxY, List<ParkingResponse> result) {
+        if (from >= to) return;
+        int mid = (from + to) >>> 1;
+        int node = tree[mid];
+        if (x[node] >= minX && x[node] <= maxX && y[node] >= minY && y[node] <= maxY) result.add(lots.get(node));
+
+        double value = depth % 2 == 0 ? x[node] : y[node];
+        if ((depth % 2 == 0 ? minX : minY) <= value) inArea(from, mid, depth + 1, minX, minY, maxX, maxY, result);
+        if ((depth % 2 == 0 ? maxX : maxY) >= value) inArea(mid + 1, to, depth + 1, minX, minY, maxX, maxY, result);
+    }
+
+    private void build(int from, int to, int depth) {
+        if (to - from <= 1) return;
+        int mid = (from + to) >>> 1;
+        select(from, to - 1, mid, depth % 2 == 0 ? x : y);
+        build(from, mid, depth + 1);
+        build(mid + 1, to, depth + 1);
+    }
+
+    // quickselect: afterwards tree[k] holds the median by the axis, smaller values before, larger after
+    private void select(int left, int right, int k, double[] axis) {
+        while (left < right) {
+            double pivot = axis[tree[(left + right) >>> 1]];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (axis[tree[i]] < pivot) i++;
+                while (axis[tree[j]] > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int tmp = tree[i];
+        tree[i] = tree[j];
+        tree[j] = tmp;
+    }
+
+    // largest ratio between planar and exact distance over the latitudes spanned by the lots and the query
+    private double margin(double queryLatitude) {
+        double min = Math.min(minLatitude, queryLatitude);
+        double max = Math.max(maxLatitude, queryLatitude);
+        double lowestCos = Math.min(Math.cos(Math.toRadians(min)), Math.cos(Math.toRadians(max)));
+        double highestCos = min <= 0 && max >= 0 ? 1 : Math.max(Math.cos(Math.toRadians(min)), Math.cos(Math.toRadians(max)));
+        double distortion = Math.max(referenceCos / Math.max(lowestCos, 1e-6), highestCos / referenceCos);
+        return distortion * (1 + CURVATURE_MARGIN);
+    }
+
+    private double projectX(double lon) {
+        return Math.toRadians(lon) * referenceCos * EARTH_RADIUS_KM;
+    }
+
+    private static double projectY(double lat) {
+        return Math.toRadians(lat) * EARTH_RADIUS_KM;
+    }
+
+    private double haversine(double lat, double lon, int node) {
+        return haversineDistance(lat, lon, latitude[node], longitude[node]);
+    }
+
+    // sin² of the half angle, 1 - cos rounds to 0 below a few metres and would put nearby lots at 0 km
+    static double haversineDistance(double lat1, double lon1, double lat2, double lon2) {
+        double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double havLat = sinLat * sinLat;
+        double havLon = sinLon * sinLon;
+        double haversine = havLat + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * havLon;
+
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(haversine), Math.sqrt(1 - haversine));
+    }
+
+    @FunctionalInterface
+    private interface IntSink {
+        void accept(int value);
+    }
+}
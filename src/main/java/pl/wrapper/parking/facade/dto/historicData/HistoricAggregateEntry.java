@@ -0,0 +1,11 @@
+package pl.wrapper.parking.facade.dto.historicData;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record HistoricAggregateEntry(@Schema(type = "string", format = "time", example = "12:45", description = "Start of the slot of day, missing for whole lots") @JsonInclude(JsonInclude.Include.NON_NULL) String timestamp,
+                                     short minFreeSpots, double averageFreeSpots, short maxFreeSpots,
+                                     @Schema(example = "0.85", description = "Average share of taken spots, by the current capacity of the lot, missing if it isn't known") @JsonInclude(JsonInclude.Include.NON_NULL) Double fillRate,
+                                     @Schema(example = "12", description = "Intervals with no free spots") int fullIntervals,
+                                     @Schema(example = "2880", description = "Intervals with data") int samples) {
+}
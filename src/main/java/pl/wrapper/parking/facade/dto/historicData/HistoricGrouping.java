@@ -0,0 +1,5 @@
+package pl.wrapper.parking.facade.dto.historicData;
+
+public enum HistoricGrouping {
+    PARKING, SLOT_OF_DAY
+}
@@ -0,0 +1,9 @@
+package pl.wrapper.parking.facade.dto.historicData;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record HistoricPeriodRollupData(short parkingId, @ArraySchema(schema = @Schema(implementation = HistoricRollupEntry.class)) List<HistoricRollupEntry> dataList) {
+}
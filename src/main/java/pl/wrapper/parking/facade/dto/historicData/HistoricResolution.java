@@ -0,0 +1,5 @@
+package pl.wrapper.parking.facade.dto.historicData;
+
+public enum HistoricResolution {
+    SLOT, HOUR, DAY
+}
@@ -0,0 +1,11 @@
+package pl.wrapper.parking.facade.dto.historicData;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+
+public record HistoricRollupEntry(@Schema(type = "string", format = "date", example = "2025-08-23") LocalDate atDate,
+                                  @Schema(type = "string", format = "time", example = "12:00", description = "Start of the hour, missing for daily values") @JsonInclude(JsonInclude.Include.NON_NULL) String timestamp,
+                                  short minFreeSpots, double averageFreeSpots, short maxFreeSpots) {
+}
@@ -5,4 +5,10 @@ import lombok.Builder;
 
 @Builder
 public record ParkingStats(
-        @Schema(example = "0.723") double averageAvailability, @Schema(example = "37") int averageFreeSpots) {}
+        @Schema(example = "0.723") double averageAvailability, @Schema(example = "37") int averageFreeSpots) {
+
+    /** Availability rounded half up to three decimals, free spots truncated. */
+    public static ParkingStats of(double availability, int totalSpots) {
+        return new ParkingStats(Math.round(availability * 1000.0) / 1000.0, (int) (availability * totalSpots));
+    }
+}
@@ -0,0 +1,15 @@
+package pl.wrapper.parking.infrastructure.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.wrapper.parking.infrastructure.web.PrettyPrintJsonHttpMessageConverter;
+
+@Configuration
+class JsonConfiguration {
+    // replaces the json converter of Spring Boot, which backs off when one is defined
+    @Bean
+    public PrettyPrintJsonHttpMessageConverter prettyPrintJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        return new PrettyPrintJsonHttpMessageConverter(objectMapper);
+    }
+}
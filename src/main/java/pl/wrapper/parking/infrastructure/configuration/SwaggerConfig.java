@@ -2,9 +2,13 @@ package pl.wrapper.parking.infrastructure.configuration;
 
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.media.BooleanSchema;
+import io.swagger.v3.oas.models.parameters.QueryParameter;
 import io.swagger.v3.oas.models.servers.Server;
+import org.springdoc.core.customizers.OperationCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import pl.wrapper.parking.infrastructure.web.PrettyPrintJsonHttpMessageConverter;
 
 import java.util.List;
 
@@ -14,7 +18,13 @@ class SwaggerConfig {
     public OpenAPI customOpenAPI() {
         Info info = new Info();
         info.title("Parking API");
-        info.description("Wrapper for old PWr API for parking lots");
+        info.description("""
+                Wrapper for old PWr API for parking lots
+
+                ### Compatibility
+                Single-lot responses (`/id`, `/name`, `/symbol`) write times and dates as ISO-8601 strings, e.g.
+                `"openingHours": "08:00:00"`, the same as the list endpoints. Earlier versions wrote them as arrays,
+                e.g. `[8,0]`.""");
         return new OpenAPI()
                 .servers(List.of(
                         new Server().url("https://parking-api.topwr.solvro.pl/parkingiAPI").description("HTTPS server version"),
@@ -23,4 +33,12 @@ class SwaggerConfig {
                 .info(info);
     }
 
+    @Bean
+    public OperationCustomizer prettyPrintParameter() {
+        return (operation, handlerMethod) -> operation.addParametersItem(new QueryParameter()
+                .name(PrettyPrintJsonHttpMessageConverter.PRETTY_PARAMETER)
+                .description("indent the json response")
+                .schema(new BooleanSchema()._default(false)));
+    }
+
 }
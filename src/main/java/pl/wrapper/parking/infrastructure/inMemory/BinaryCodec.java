@@ -0,0 +1,55 @@
+package pl.wrapper.parking.infrastructure.inMemory;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes one key or value of a repository snapshot and reads it back from the file contents. Reads get the
+ * version the file was written with, so a codec can keep reading the layouts of its earlier versions.
+ * Numbers are big endian on both sides, as {@link DataOutput} writes them and {@link ByteBuffer} reads them.
+ */
+public interface BinaryCodec<T> {
+
+    void write(T value, DataOutput out) throws IOException;
+
+    T read(ByteBuffer in, int version);
+
+    BinaryCodec<Integer> INT = new BinaryCodec<>() {
+        @Override
+        public void write(Integer value, DataOutput out) throws IOException {
+            out.writeInt(value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer in, int version) {
+            return in.getInt();
+        }
+    };
+
+    BinaryCodec<String> STRING = new BinaryCodec<>() {
+        @Override
+        public void write(String value, DataOutput out) throws IOException {
+            writeString(value, out);
+        }
+
+        @Override
+        public String read(ByteBuffer in, int version) {
+            return readString(in);
+        }
+    };
+
+    // length prefixed UTF-8, DataOutput.writeUTF is limited to 64 KB and uses modified UTF-8
+    static void writeString(String value, DataOutput out) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
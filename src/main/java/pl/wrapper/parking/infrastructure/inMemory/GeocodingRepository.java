@@ -0,0 +1,109 @@
+package pl.wrapper.parking.infrastructure.inMemory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.wrapper.parking.facade.dto.main.NominatimLocation;
+import pl.wrapper.parking.infrastructure.inMemory.dto.GeocodingData;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Disk tier of the geocoding cache, keyed by normalized address. Entries are kept as long as their
+ * result is valid: found locations for {@code maps.cache.ttl.days}, misses for {@code maps.cache.negative-ttl.hours}.
+ */
+@Component("geocodingRepository")
+@Slf4j
+public class GeocodingRepository extends InMemoryRepositoryImpl<String, GeocodingData> {
+
+    private static final SnapshotFormat<String, GeocodingData> FORMAT = new SnapshotFormat<>(
+            "geocoding",
+            1,
+            "string address -> {long resolvedAtSeconds, int resolvedAtNanos, int count,"
+                    + " count x {double latitude, double longitude}}",
+            BinaryCodec.STRING,
+            new BinaryCodec<>() {
+                @Override
+                public void write(GeocodingData data, DataOutput out) throws IOException {
+                    out.writeLong(data.resolvedAt().getEpochSecond());
+                    out.writeInt(data.resolvedAt().getNano());
+                    out.writeInt(data.locations().size());
+                    for (NominatimLocation location : data.locations()) {
+                        out.writeDouble(location.latitude());
+                        out.writeDouble(location.longitude());
+                    }
+                }
+
+                @Override
+                public GeocodingData read(ByteBuffer in, int version) {
+                    Instant resolvedAt = Instant.ofEpochSecond(in.getLong(), in.getInt());
+                    int count = in.getInt();
+                    List<NominatimLocation> locations = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++)
+                        locations.add(new NominatimLocation(in.getDouble(), in.getDouble()));
+                    return new GeocodingData(locations, resolvedAt);
+                }
+            });
+
+    private final Duration ttl;
+    private final Duration negativeTtl;
+
+    public GeocodingRepository(
+            @Value("${serialization.location.geocoding}") String saveToLocationPath,
+            @Value("${maps.cache.ttl.days}") long ttlDays,
+            @Value("${maps.cache.negative-ttl.hours}") long negativeTtlHours) {
+        super(saveToLocationPath, new ConcurrentHashMap<>(), null, FORMAT);
+        this.ttl = Duration.ofDays(ttlDays);
+        this.negativeTtl = Duration.ofHours(negativeTtlHours);
+    }
+
+    public boolean isExpired(GeocodingData data, Instant now) {
+        return data.isOlderThan(data.isFound() ? ttl : negativeTtl, now);
+    }
+
+    /**
+     * The former checkpoint was a {@code ConcurrentHashMap}, which writes lock segments ahead of its entries, of
+     * records holding an immutable list and an {@code Instant}.
+     */
+    @Override
+    protected ObjectInputFilter legacyCheckpointFilter() {
+        return legacyFilter(
+                "java.util.concurrent.ConcurrentHashMap",
+                "java.util.concurrent.ConcurrentHashMap$Segment",
+                "java.util.concurrent.locks.*",
+                "java.util.CollSer",
+                "java.util.ImmutableCollections$List12",
+                "java.util.ImmutableCollections$ListN",
+                "java.time.Instant",
+                GeocodingData.class.getName(),
+                NominatimLocation.class.getName());
+    }
+
+    @Override
+    public GeocodingData get(String key) {
+        GeocodingData data = super.get(key);
+        if (data == null || !isExpired(data, Instant.now())) return data;
+        remove(key, data);
+        return null;
+    }
+
+    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.HOURS)
+    protected void removeExpired() {
+        Instant now = Instant.now();
+        int removed = 0;
+        for (Map.Entry<String, GeocodingData> entry : dataMap.entrySet())
+            if (isExpired(entry.getValue(), now) && remove(entry.getKey(), entry.getValue())) removed++;
+        if (removed > 0) log.info("Removed {} expired geocoding entries", removed);
+    }
+}
@@ -2,37 +2,93 @@ package pl.wrapper.parking.infrastructure.inMemory;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.serializer.support.SerializationFailedException;
 import org.springframework.scheduling.annotation.Scheduled;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Keeps the data in {@link #dataMap} and persists it in two files: a checkpoint with the whole map and a write
+ * ahead log ({@code <file>.log}) with every change made since. {@link #add} appends a record to the log,
+ * {@link #periodicSerialize} writes a new checkpoint to {@code <file>.tmp}, renames it over the old one and
+ * empties the log. On startup the checkpoint is loaded and the log replayed on top of it.
+ */
+@Slf4j
 public abstract class InMemoryRepositoryImpl<K extends Serializable, V extends Serializable>
         implements InMemoryRepository<K, V> {
 
+    /** Log record of {@link #add}: key and value as written by the codecs. Subclasses use other types. */
+    protected static final byte PUT = 0;
+    /** Log record of {@link #remove}: the key as written by the codec. Negative, so no subclass type is taken. */
+    protected static final byte REMOVE = -1;
+
+    // the maps, boxed numbers and java.time values the former checkpoints were built from, String is always allowed.
+    // HashMap and ArrayList check the arrays they allocate on read against the filter as Map.Entry[] and Object[]
+    private static final String LEGACY_CLASSES = "java.util.HashMap;java.util.Map$Entry;java.util.ArrayList;"
+            + "java.lang.Object;java.lang.Integer;java.lang.Double;java.lang.Number;java.lang.Enum;"
+            + "java.time.Ser;java.time.LocalTime;java.time.DayOfWeek";
+    private static final String LEGACY_LIMITS = "maxdepth=10;maxrefs=1000000;maxarray=1000000";
+
     protected final transient File file;
     protected Map<K, V> dataMap;
     protected final V defaultValue;
+    private final SnapshotFormat<K, V> format;
 
-    public InMemoryRepositoryImpl(String filePath, Map<K, V> map, V defaultValue) {
+    // a change and its log record, or a checkpoint and the log reset, happen together
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private WriteAheadLog journal;
+
+    public InMemoryRepositoryImpl(String filePath, Map<K, V> map, V defaultValue, SnapshotFormat<K, V> format) {
         this.file = new File(filePath);
         this.defaultValue = defaultValue;
+        this.format = format;
 
         this.dataMap = map;
     }
 
     @Override
     public void add(K key, V value) {
-        dataMap.put(key, value);
+        apply(PUT, out -> {
+            format.keyCodec().write(key, out);
+            format.valueCodec().write(value, out);
+        }, () -> dataMap.put(key, value));
+    }
+
+    /**
+     * Removes the entry of {@code key} if it still holds {@code value}. Only an actual removal is logged, a record
+     * for a value replaced meanwhile would delete the newer one on replay.
+     *
+     * @return whether the entry was removed
+     */
+    protected boolean remove(K key, V value) {
+        journalLock.lock();
+        try {
+            if (!dataMap.remove(key, value)) return false;
+            if (journal != null) journal.append(REMOVE, out -> format.keyCodec().write(key, out));
+        } catch (IOException e) {
+            log.error("Failed to log a change to {}: {}", file, e.getMessage());
+        } finally {
+            journalLock.unlock();
+        }
+        return true;
     }
 
     @Override
@@ -50,40 +106,159 @@ public abstract class InMemoryRepositoryImpl<K extends Serializable, V extends S
         return dataMap.getOrDefault(key, defaultValue);
     }
 
+    /**
+     * Makes {@code change} and logs {@code record} for it, so {@link #replay} can make it again after a restart.
+     * Without an open log (before {@link #init}) only the change is made.
+     */
+    protected void apply(byte type, WriteAheadLog.Payload record, Runnable change) {
+        journalLock.lock();
+        try {
+            change.run();
+            if (journal != null) journal.append(type, record);
+        } catch (IOException e) {
+            // the change is in memory and goes into the next checkpoint, only a crash before it loses it
+            log.error("Failed to log a change to {}: {}", file, e.getMessage());
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /** Makes the change of a log record of another type than {@link #PUT} or {@link #REMOVE} again. */
+    protected void replay(byte type, ByteBuffer record, int version) {
+        throw new SerializationFailedException("Unknown log record type " + type + " in " + file + ".log");
+    }
+
     @PostConstruct
-    @SuppressWarnings("unchecked")
     protected void init() {
-        if (!file.exists()) return;
+        journalLock.lock();
+        try {
+            closeJournal();
+            long start = System.nanoTime();
+            if (file.exists()) loadCheckpoint();
+            createParentDirectory();
+            journal = WriteAheadLog.open(logPath(), format.version(), this::replayRecord);
+            log.info(
+                    "Loaded {} entries from {} in {} ms",
+                    dataMap.size(),
+                    file,
+                    (System.nanoTime() - start) / 1_000_000);
+            // folds the replayed records into a fresh checkpoint, new records then use the current version
+            checkpoint();
+        } catch (IOException e) {
+            throw new SerializationFailedException(createExceptionForIOE("Deserialization", e));
+        } finally {
+            journalLock.unlock();
+        }
+    }
 
-        try (FileInputStream fileIn = new FileInputStream(file);
-                ObjectInputStream in = new ObjectInputStream(fileIn)) {
+    private void loadCheckpoint() throws IOException {
+        if (SnapshotFile.isSnapshot(file.toPath())) {
+            SnapshotFile.read(file.toPath(), format, dataMap);
+            return;
+        }
+        // written by the former ObjectOutputStream serialization, init checkpoints it in the snapshot format
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            dataMap.putAll(readLegacyCheckpoint(in));
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Cannot migrate " + file + " from Java serialization: " + e.getMessage(), e);
+        }
+        log.info("Migrated {} entries of {} from Java serialization to the snapshot format", dataMap.size(), file);
+    }
 
-            this.dataMap = (Map<K, V>) in.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            throw new SerializationFailedException(createExceptionForIOE("Deserialization", e));
+    /**
+     * Reads a checkpoint written by the former {@link ObjectOutputStream} serialization, the whole map as one object.
+     * Only the classes of {@link #legacyCheckpointFilter()} are read. Repositories whose key or value classes changed
+     * since then override this to convert them.
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<K, V> readLegacyCheckpoint(InputStream in) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objects = new ObjectInputStream(in)) {
+            objects.setObjectInputFilter(legacyCheckpointFilter());
+            return (Map<K, V>) objects.readObject();
+        }
+    }
+
+    /** Accepts what {@link #legacyFilter} accepts, repositories with other entry classes add them to it. */
+    protected ObjectInputFilter legacyCheckpointFilter() {
+        return legacyFilter();
+    }
+
+    /**
+     * Accepts the JDK classes a former checkpoint was built from and the classes named by {@code classPatterns}, in
+     * {@link ObjectInputFilter.Config#createFilter} syntax. Any other class, or a graph nested deeper, holding more
+     * references or longer arrays than a checkpoint ever did, fails the read with an {@link java.io.InvalidClassException}.
+     */
+    static ObjectInputFilter legacyFilter(String... classPatterns) {
+        StringBuilder pattern = new StringBuilder(LEGACY_LIMITS).append(';').append(LEGACY_CLASSES);
+        for (String classPattern : classPatterns) pattern.append(';').append(classPattern);
+        return ObjectInputFilter.Config.createFilter(pattern.append(";!*").toString());
+    }
+
+    private void replayRecord(byte type, ByteBuffer record, int version) {
+        switch (type) {
+            case PUT -> {
+                K key = format.keyCodec().read(record, version);
+                dataMap.put(key, format.valueCodec().read(record, version));
+            }
+            case REMOVE -> dataMap.remove(format.keyCodec().read(record, version));
+            default -> replay(type, record, version);
         }
     }
 
     @PreDestroy
     private void selfSerialize() {
+        checkpoint();
+        journalLock.lock();
+        try {
+            closeJournal();
+        } catch (IOException e) {
+            throw new SerializationFailedException(createExceptionForIOE("Serialization", e));
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedRateString = "#{60 * 1000 * ${serialization.timeStamp.inMinutes}}", initialDelay = 10 * 1000)
+    protected void periodicSerialize() {
+        checkpoint();
+    }
+
+    private void checkpoint() {
+        Path target = file.toPath();
+        Path temp = Path.of(file.getPath() + ".tmp");
+        journalLock.lock();
+        try {
+            createParentDirectory();
+            SnapshotFile.write(temp, format, dataMap);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // every logged change is in the checkpoint now
+            if (journal != null) journal.reset();
+        } catch (IOException e) {
+            throw new SerializationFailedException(createExceptionForIOE("Serialization", e));
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void createParentDirectory() {
         File parent = file.getParentFile();
         if (parent != null && !parent.exists())
             if (!parent.mkdirs())
                 throw new SerializationFailedException(
                         "Failed to create directory for path: " + file.getAbsolutePath());
+    }
 
-        try (FileOutputStream fileOut = new FileOutputStream(file);
-                ObjectOutputStream out = new ObjectOutputStream(fileOut)) {
-
-            out.writeObject(dataMap);
-        } catch (IOException e) {
-            throw new SerializationFailedException(createExceptionForIOE("Serialization", e));
-        }
+    private void closeJournal() throws IOException {
+        if (journal == null) return;
+        journal.close();
+        journal = null;
     }
 
-    @Scheduled(fixedRateString = "#{60 * 1000 * ${serialization.timeStamp.inMinutes}}", initialDelay = 10 * 1000)
-    protected void periodicSerialize() {
-        selfSerialize();
+    private Path logPath() {
+        return Path.of(file.getPath() + ".log");
     }
 
     private static <E extends Exception> String createExceptionForIOE(String methodType, E e) {
@@ -0,0 +1,75 @@
+package pl.wrapper.parking.infrastructure.inMemory;
+
+import pl.wrapper.parking.infrastructure.inMemory.dto.OccupancyProfile;
+import pl.wrapper.parking.infrastructure.inMemory.dto.ParkingData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Map;
+
+/**
+ * Parking data as it was kept before the {@link OccupancyProfile}: per day of the week a map from the rounded
+ * sample time to the sample count and average availability of that time. The records have the shape of the
+ * classes of that time, so the history stored in it can be converted instead of collected again.
+ */
+final class LegacyParkingData {
+
+    private static final String PARKING_DATA = ParkingData.class.getName();
+    private static final String AVAILABILITY_DATA = "pl.wrapper.parking.infrastructure.inMemory.dto.AvailabilityData";
+
+    record Parking(int parkingId, int totalSpots, Map<DayOfWeek, Map<LocalTime, Availability>> freeSpotsHistory)
+            implements Serializable {}
+
+    record Availability(int sampleCount, double averageAvailability) implements Serializable {}
+
+    private LegacyParkingData() {}
+
+    /**
+     * Reads the Java serialized {@code HashMap<Integer, ParkingData>} of that time. The stream names the former
+     * {@code ParkingData} and {@code AvailabilityData}, their descriptors are swapped for the ones of the records
+     * with the same fields, so the stored values are read into those. The filter sees the classes of the records.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<Integer, Parking> read(InputStream in) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objects = new ObjectInputStream(in) {
+            @Override
+            protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+                ObjectStreamClass stored = super.readClassDescriptor();
+                if (stored.getName().equals(PARKING_DATA)) return ObjectStreamClass.lookup(Parking.class);
+                if (stored.getName().equals(AVAILABILITY_DATA)) return ObjectStreamClass.lookup(Availability.class);
+                return stored;
+            }
+        }) {
+            objects.setObjectInputFilter(
+                    InMemoryRepositoryImpl.legacyFilter(Parking.class.getName(), Availability.class.getName()));
+            return (Map<Integer, Parking>) objects.readObject();
+        }
+    }
+
+    /**
+     * Moves every sampled time into the profile slot holding it. Times were rounded to the fetch interval, so with
+     * an unchanged interval each lands in a slot of its own; otherwise the slot gets the weighted mean of its times.
+     */
+    static ParkingData convert(Parking legacy, int slotMinutes) {
+        OccupancyProfile occupancy = new OccupancyProfile(slotMinutes);
+        if (legacy.freeSpotsHistory() != null) {
+            for (Map.Entry<DayOfWeek, Map<LocalTime, Availability>> day :
+                    legacy.freeSpotsHistory().entrySet()) {
+                for (Map.Entry<LocalTime, Availability> time : day.getValue().entrySet()) {
+                    Availability availability = time.getValue();
+                    occupancy = occupancy.withSamples(
+                            day.getKey(),
+                            time.getKey(),
+                            availability.sampleCount(),
+                            availability.averageAvailability());
+                }
+            }
+        }
+        return new ParkingData(legacy.parkingId(), legacy.totalSpots(), occupancy);
+    }
+}
@@ -4,12 +4,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import pl.wrapper.parking.infrastructure.inMemory.dto.AvailabilityData;
+import pl.wrapper.parking.infrastructure.inMemory.dto.OccupancyProfile;
 import pl.wrapper.parking.infrastructure.inMemory.dto.ParkingData;
 import pl.wrapper.parking.infrastructure.util.DateTimeUtils;
 import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
 import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -17,12 +21,42 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Availability profiles of all lots, written by {@link #handleData} and read by the stats on request threads.
+ * Every sample publishes a new immutable {@link ParkingData} for its lot into a {@link ConcurrentHashMap},
+ * so readers never lock and never see a half applied sample; checkpoints read the same way.
+ */
 @Component("parkingDataRepository")
 @Slf4j
 public class ParkingDataRepository extends InMemoryRepositoryImpl<Integer, ParkingData> {
 
+    private static final SnapshotFormat<Integer, ParkingData> FORMAT = new SnapshotFormat<>(
+            "parking-data",
+            1,
+            "int parkingId -> {int parkingId, int totalSpots, int slotMinutes, int slotsPerDay,"
+                    + " 7 x {int[slotsPerDay] sampleCounts, double[slotsPerDay] averages}}",
+            BinaryCodec.INT,
+            new BinaryCodec<>() {
+                @Override
+                public void write(ParkingData data, DataOutput out) throws IOException {
+                    out.writeInt(data.parkingId());
+                    out.writeInt(data.totalSpots());
+                    data.occupancy().writeTo(out);
+                }
+
+                @Override
+                public ParkingData read(ByteBuffer in, int version) {
+                    return new ParkingData(in.getInt(), in.getInt(), OccupancyProfile.readFrom(in));
+                }
+            });
+
+    // one availability sample: int parkingId, int totalSpots, byte day ordinal, short minute of day, double
+    private static final byte SAMPLE = 1;
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
     @Value("${pwr-api.data-fetch.minutes}")
     private Integer minuteInterval;
 
@@ -31,7 +65,7 @@ public class ParkingDataRepository extends InMemoryRepositoryImpl<Integer, Parki
     public ParkingDataRepository(
             @Value("${serialization.location.parkingData}") String saveToLocationPath,
             PwrApiServerCaller pwrApiServerCaller) {
-        super(saveToLocationPath, new HashMap<>(), null);
+        super(saveToLocationPath, new ConcurrentHashMap<>(), null, FORMAT);
         this.pwrApiServerCaller = pwrApiServerCaller;
     }
 
@@ -39,6 +73,15 @@ public class ParkingDataRepository extends InMemoryRepositoryImpl<Integer, Parki
         return dataMap.values();
     }
 
+    @Override
+    protected Map<Integer, ParkingData> readLegacyCheckpoint(InputStream in)
+            throws IOException, ClassNotFoundException {
+        Map<Integer, ParkingData> converted = new HashMap<>();
+        LegacyParkingData.read(in)
+                .forEach((id, legacy) -> converted.put(id, LegacyParkingData.convert(legacy, minuteInterval)));
+        return converted;
+    }
+
     @Scheduled(fixedRateString = "${pwr-api.data-fetch.minutes}", timeUnit = TimeUnit.MINUTES)
     private void handleData() {
         LocalDateTime currentDateTime = DateTimeUtils.roundToNearestInterval(LocalDateTime.now(), minuteInterval);
@@ -50,32 +93,49 @@ public class ParkingDataRepository extends InMemoryRepositoryImpl<Integer, Parki
         List<ParkingResponse> parkings = pwrApiServerCaller.fetchParkingData();
         for (ParkingResponse parking : parkings) {
             int parkingId = parking.parkingId();
-            double availability = (double) parking.freeSpots() / parking.totalSpots();
-
-            ParkingData parkingData = get(parkingId);
-            if (parkingData == null) {
-                parkingData = ParkingData.builder()
-                        .parkingId(parkingId)
-                        .totalSpots(parking.totalSpots())
-                        .freeSpotsHistory(new HashMap<>())
-                        .build();
-            }
-
-            Map<LocalTime, AvailabilityData> dailyHistory =
-                    parkingData.freeSpotsHistory().computeIfAbsent(currentDay, k -> new HashMap<>());
-            AvailabilityData availabilityData =
-                    dailyHistory.computeIfAbsent(currentTime, k -> new AvailabilityData(0, 0.0));
-
-            int newSampleCount = availabilityData.sampleCount() + 1;
-            double newAvgAvailability =
-                    (availabilityData.averageAvailability() * availabilityData.sampleCount() + availability)
-                            / newSampleCount;
-            AvailabilityData newAvailabilityData = new AvailabilityData(newSampleCount, newAvgAvailability);
-
-            dailyHistory.put(currentTime, newAvailabilityData);
-            add(parkingId, parkingData);
+            int totalSpots = parking.totalSpots();
+            double availability = (double) parking.freeSpots() / totalSpots;
+
+            // the log gets the sample, not the whole profile it changes
+            apply(
+                    SAMPLE,
+                    out -> {
+                        out.writeInt(parkingId);
+                        out.writeInt(totalSpots);
+                        out.writeByte(currentDay.ordinal());
+                        out.writeShort(currentTime.toSecondOfDay() / 60);
+                        out.writeDouble(availability);
+                    },
+                    () -> recordSample(parkingId, totalSpots, currentDay, currentTime, availability));
         }
 
         log.info("Parking data saved successfully. Storage updated.");
     }
+
+    @Override
+    protected void replay(byte type, ByteBuffer record, int version) {
+        if (type != SAMPLE) {
+            super.replay(type, record, version);
+            return;
+        }
+        int parkingId = record.getInt();
+        int totalSpots = record.getInt();
+        DayOfWeek day = DAYS[record.get()];
+        LocalTime time = LocalTime.ofSecondOfDay(record.getShort() * 60L);
+        recordSample(parkingId, totalSpots, day, time, record.getDouble());
+    }
+
+    // replaces the lot's data as a whole, readers keep the version they got until their next lookup
+    private void recordSample(int parkingId, int totalSpots, DayOfWeek day, LocalTime time, double availability) {
+        dataMap.compute(parkingId, (id, current) -> {
+            ParkingData parkingData = current != null
+                    ? current
+                    : ParkingData.builder()
+                            .parkingId(id)
+                            .totalSpots(totalSpots)
+                            .occupancy(new OccupancyProfile(minuteInterval))
+                            .build();
+            return parkingData.withSample(day, time, availability);
+        });
+    }
 }
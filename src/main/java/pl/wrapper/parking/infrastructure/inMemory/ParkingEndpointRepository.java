@@ -11,6 +11,7 @@ public class ParkingEndpointRepository extends InMemoryRepositoryImpl<Integer, I
         super(
                 saveToLocationPath, // to modify location path, change above @Value's value
                 new HashMap<>(), // put here whatever map type you want
-                null); // Add default value here (empty object probably)
+                null, // Add default value here (empty object probably)
+                new SnapshotFormat<>("parking-requests", 1, "int -> int", BinaryCodec.INT, BinaryCodec.INT));
     }
 }
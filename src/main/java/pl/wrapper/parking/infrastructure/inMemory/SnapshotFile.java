@@ -0,0 +1,112 @@
+package pl.wrapper.parking.infrastructure.inMemory;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of a repository:
+ * <pre>
+ * int    magic "PKRS"
+ * short  file layout version
+ * string format name, int format version, string schema
+ * int    entry count, then key and value of every entry as written by the codecs
+ * long   CRC32 of everything above
+ * </pre>
+ * Strings are length prefixed UTF-8. A file is read into a heap buffer in full, no mapping of it outlives the read
+ * and keeps the replaced file around after a checkpoint renames over it.
+ */
+final class SnapshotFile {
+
+    static final int MAGIC = 0x504B5253;
+    private static final short LAYOUT_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private SnapshotFile() {}
+
+    static <K, V> void write(Path path, SnapshotFormat<K, V> format, Map<K, V> data) throws IOException {
+        // copied first so the entry count matches the entries even if the map changes meanwhile
+        List<Map.Entry<K, V>> entries = new ArrayList<>(data.entrySet());
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(
+                        path,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new CheckedOutputStream(Channels.newOutputStream(channel), crc), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeShort(LAYOUT_VERSION);
+            BinaryCodec.writeString(format.name(), out);
+            out.writeInt(format.version());
+            BinaryCodec.writeString(format.schema(), out);
+            out.writeInt(entries.size());
+            for (Map.Entry<K, V> entry : entries) {
+                format.keyCodec().write(entry.getKey(), out);
+                format.valueCodec().write(entry.getValue(), out);
+            }
+            out.flush();
+            // the checksum itself stays outside of the checked stream
+            out.writeLong(crc.getValue());
+        }
+    }
+
+    /** Whether the file starts like a snapshot; files written by the former Java serialization do not. */
+    static boolean isSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(Integer.BYTES);
+            return channel.read(head, 0) == Integer.BYTES && head.getInt(0) == MAGIC;
+        }
+    }
+
+    static <K, V> void read(Path path, SnapshotFormat<K, V> format, Map<K, V> target) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+        try {
+            verifyChecksum(path, in);
+            in.position(Integer.BYTES);
+            short layout = in.getShort();
+            if (layout != LAYOUT_VERSION) throw invalid(path, "unknown file layout " + layout);
+            String name = BinaryCodec.readString(in);
+            int version = in.getInt();
+            String schema = BinaryCodec.readString(in);
+            if (!format.name().equals(name))
+                throw invalid(path, "holds '" + name + "', expected '" + format.name() + "'");
+            if (version > format.version())
+                throw invalid(path, "written by a newer version " + version + " of '" + name + "': " + schema);
+
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                K key = format.keyCodec().read(in, version);
+                target.put(key, format.valueCodec().read(in, version));
+            }
+        } catch (BufferUnderflowException e) {
+            throw invalid(path, "ends too early");
+        }
+    }
+
+    private static void verifyChecksum(Path path, ByteBuffer in) {
+        int end = in.limit() - Long.BYTES;
+        if (end < Integer.BYTES) throw invalid(path, "ends too early");
+        CRC32 crc = new CRC32();
+        crc.update(in.slice(0, end));
+        if (crc.getValue() != in.getLong(end)) throw invalid(path, "checksum mismatch");
+    }
+
+    private static SerializationFailedException invalid(Path path, String reason) {
+        return new SerializationFailedException("Snapshot " + path.toAbsolutePath() + " is unreadable: " + reason);
+    }
+}
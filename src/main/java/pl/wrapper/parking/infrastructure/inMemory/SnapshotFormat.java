@@ -0,0 +1,10 @@
+package pl.wrapper.parking.infrastructure.inMemory;
+
+/**
+ * Describes how a repository is stored on disk. {@code name} identifies the data set, a file of another
+ * data set is refused. {@code version} is raised whenever the layout written by the codecs changes; files of
+ * older versions are still read, the codecs get their version. {@code schema} is a readable description of
+ * the current layout, it is stored in every file and shown when a file cannot be read.
+ */
+public record SnapshotFormat<K, V>(
+        String name, int version, String schema, BinaryCodec<K> keyCodec, BinaryCodec<V> valueCodec) {}
@@ -0,0 +1,131 @@
+package pl.wrapper.parking.infrastructure.inMemory;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Changes made to a repository since its last checkpoint, appended one record at a time:
+ * <pre>
+ * header: int magic "PKWL", int format version the records are written with
+ * record: int payload length, byte type, payload, int CRC32 of type and payload
+ * </pre>
+ * A crash can leave the last record half written. Replay stops at the first record that is incomplete or
+ * fails its checksum and cuts the file there, so later appends follow the last good record. The cut is logged
+ * with its offset, since a bad record in the middle also drops every record after it.
+ */
+@Slf4j
+final class WriteAheadLog implements Closeable {
+
+    static final int MAGIC = 0x504B574C;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int RECORD_OVERHEAD = Integer.BYTES + 1 + Integer.BYTES;
+
+    @FunctionalInterface
+    interface Payload {
+        void writeTo(DataOutput out) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface RecordHandler {
+        void apply(byte type, ByteBuffer payload, int version);
+    }
+
+    private final int version;
+    private final FileChannel channel;
+
+    private WriteAheadLog(int version, FileChannel channel) {
+        this.version = version;
+        this.channel = channel;
+    }
+
+    /**
+     * Replays the records left in {@code path} into {@code handler} and opens the log for appending. A missing
+     * or unreadable header starts a new log. The records keep the version in the header until {@link #reset},
+     * so the caller checkpoints and resets before appending records of another version.
+     *
+     * @return the log, ready for new records written with {@code version}
+     */
+    static WriteAheadLog open(Path path, int version, RecordHandler handler) throws IOException {
+        long size = Files.exists(path) ? Files.size(path) : 0;
+        long validBytes = size > 0 ? replay(path, handler) : 0;
+        if (validBytes < HEADER_BYTES && size > 0)
+            log.warn("Dropping {}, its header is unusable: {} bytes discarded", path, size);
+        else if (validBytes < size)
+            log.warn(
+                    "Truncating {} at offset {} after the last intact record: {} bytes discarded",
+                    path,
+                    validBytes,
+                    size - validBytes);
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        WriteAheadLog journal = new WriteAheadLog(version, channel);
+        if (validBytes < HEADER_BYTES) journal.reset();
+        else channel.truncate(validBytes).position(validBytes);
+        return journal;
+    }
+
+    /** @return the number of bytes up to the end of the last complete record, 0 if the header is unusable */
+    private static long replay(Path path, RecordHandler handler) throws IOException {
+        // a heap copy, a mapping would still cover the part open() truncates away
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) return 0;
+        int recordVersion = in.getInt();
+
+        CRC32 crc = new CRC32();
+        while (in.remaining() >= RECORD_OVERHEAD) {
+            int start = in.position();
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining() - 1 - Integer.BYTES) break;
+
+            ByteBuffer checked = in.slice(start + Integer.BYTES, 1 + length);
+            crc.reset();
+            crc.update(checked.duplicate());
+            if ((int) crc.getValue() != in.getInt(start + Integer.BYTES + 1 + length)) break;
+
+            handler.apply(checked.get(), checked.slice(), recordVersion);
+            in.position(start + RECORD_OVERHEAD + length);
+        }
+        return in.position();
+    }
+
+    synchronized void append(byte type, Payload payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeByte(type);
+        payload.writeTo(out);
+        out.writeInt(0);
+
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        int length = record.limit() - RECORD_OVERHEAD;
+        CRC32 crc = new CRC32();
+        crc.update(record.slice(Integer.BYTES, 1 + length));
+        record.putInt(0, length).putInt(Integer.BYTES + 1 + length, (int) crc.getValue());
+        while (record.hasRemaining()) channel.write(record);
+    }
+
+    /** Drops every record, called once they are all part of a durable checkpoint. */
+    synchronized void reset() throws IOException {
+        channel.truncate(0).position(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(version).flip();
+        while (header.hasRemaining()) channel.write(header);
+        channel.force(false);
+    }
+
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,23 @@
+package pl.wrapper.parking.infrastructure.inMemory.dto;
+
+import pl.wrapper.parking.facade.dto.main.NominatimLocation;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+public record GeocodingData(List<NominatimLocation> locations, Instant resolvedAt) implements Serializable {
+
+    public GeocodingData {
+        locations = List.copyOf(locations);
+    }
+
+    public boolean isFound() {
+        return !locations.isEmpty();
+    }
+
+    public boolean isOlderThan(Duration age, Instant now) {
+        return resolvedAt.plus(age).isBefore(now);
+    }
+}
@@ -0,0 +1,124 @@
+package pl.wrapper.parking.infrastructure.inMemory.dto;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Average availability of one parking lot for every day of the week and time slot of the day. Slots are
+ * {@link #slotMinutes()} wide and addressed by day ordinal and slot number, the running averages and their
+ * sample counts live in two dense arrays. A slot without samples has count 0.
+ * <p>
+ * Instances never change, {@link #withSample} returns a new profile that copies only the row of the sampled
+ * day and shares the other six with this one. Readers on other threads always see a complete profile.
+ */
+public final class OccupancyProfile implements Serializable {
+
+    private static final int DAYS = DayOfWeek.values().length;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int slotMinutes;
+    private final double[][] averages;
+    private final int[][] counts;
+
+    public OccupancyProfile(int slotMinutes) {
+        if (slotMinutes <= 0) throw new IllegalArgumentException("Slot width must be positive");
+        int slotsPerDay = (MINUTES_PER_DAY + slotMinutes - 1) / slotMinutes;
+        this.slotMinutes = slotMinutes;
+        this.averages = new double[DAYS][slotsPerDay];
+        this.counts = new int[DAYS][slotsPerDay];
+    }
+
+    private OccupancyProfile(int slotMinutes, double[][] averages, int[][] counts) {
+        this.slotMinutes = slotMinutes;
+        this.averages = averages;
+        this.counts = counts;
+    }
+
+    /** Slot width, slots per day, then per day the sample counts followed by the averages. */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(slotMinutes);
+        out.writeInt(slotsPerDay());
+        for (int d = 0; d < DAYS; d++) {
+            for (int count : counts[d]) out.writeInt(count);
+            for (double average : averages[d]) out.writeDouble(average);
+        }
+    }
+
+    public static OccupancyProfile readFrom(ByteBuffer in) {
+        int slotMinutes = in.getInt();
+        int slotsPerDay = in.getInt();
+        double[][] averages = new double[DAYS][slotsPerDay];
+        int[][] counts = new int[DAYS][slotsPerDay];
+        for (int d = 0; d < DAYS; d++) {
+            in.asIntBuffer().get(counts[d]);
+            in.position(in.position() + slotsPerDay * Integer.BYTES);
+            in.asDoubleBuffer().get(averages[d]);
+            in.position(in.position() + slotsPerDay * Double.BYTES);
+        }
+        return new OccupancyProfile(slotMinutes, averages, counts);
+    }
+
+    public int slotMinutes() {
+        return slotMinutes;
+    }
+
+    public int slotsPerDay() {
+        return counts[0].length;
+    }
+
+    public int slotOf(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / slotMinutes;
+    }
+
+    public LocalTime timeOf(int slot) {
+        return LocalTime.ofSecondOfDay(slot * slotMinutes * 60L);
+    }
+
+    public OccupancyProfile withSample(DayOfWeek day, LocalTime time, double availability) {
+        return withSamples(day, time, 1, availability);
+    }
+
+    /** Adds {@code sampleCount} samples whose mean is {@code average} to the slot of {@code time}. */
+    public OccupancyProfile withSamples(DayOfWeek day, LocalTime time, int sampleCount, double average) {
+        if (sampleCount <= 0) return this;
+        int d = day.ordinal();
+        int slot = slotOf(time);
+        double[][] nextAverages = averages.clone();
+        int[][] nextCounts = counts.clone();
+        nextAverages[d] = averages[d].clone();
+        nextCounts[d] = counts[d].clone();
+
+        int count = counts[d][slot];
+        nextAverages[d][slot] = (averages[d][slot] * count + average * sampleCount) / (count + sampleCount);
+        nextCounts[d][slot] = count + sampleCount;
+        return new OccupancyProfile(slotMinutes, nextAverages, nextCounts);
+    }
+
+    public boolean hasSamples(DayOfWeek day, int slot) {
+        return counts[day.ordinal()][slot] > 0;
+    }
+
+    public int sampleCount(DayOfWeek day, int slot) {
+        return counts[day.ordinal()][slot];
+    }
+
+    public double average(DayOfWeek day, int slot) {
+        return averages[day.ordinal()][slot];
+    }
+
+    /** Mean of the slot's averages over the days that have samples in it, 0 if none has. */
+    public double averageOverDays(int slot) {
+        double sum = 0.0;
+        int days = 0;
+        for (int d = 0; d < DAYS; d++) {
+            if (counts[d][slot] == 0) continue;
+            sum += averages[d][slot];
+            days++;
+        }
+        return days == 0 ? 0.0 : sum / days;
+    }
+}
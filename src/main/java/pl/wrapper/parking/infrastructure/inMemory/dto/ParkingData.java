@@ -5,9 +5,18 @@ import lombok.Builder;
 import java.io.Serializable;
 import java.time.DayOfWeek;
 import java.time.LocalTime;
-import java.util.Map;
 
-@Builder
-public record ParkingData(
-        int parkingId, int totalSpots, Map<DayOfWeek, Map<LocalTime, AvailabilityData>> freeSpotsHistory)
-        implements Serializable {}
+/** Occupancy profile of one lot with the stats derived from it, both replaced as a whole on every sample. */
+public record ParkingData(int parkingId, int totalSpots, OccupancyProfile occupancy, ParkingStatsView stats)
+        implements Serializable {
+
+    @Builder
+    public ParkingData(int parkingId, int totalSpots, OccupancyProfile occupancy) {
+        this(parkingId, totalSpots, occupancy, ParkingStatsView.of(parkingId, totalSpots, occupancy));
+    }
+
+    public ParkingData withSample(DayOfWeek day, LocalTime time, double availability) {
+        OccupancyProfile next = occupancy.withSample(day, time, availability);
+        return new ParkingData(parkingId, totalSpots, next, stats.withDay(day, next));
+    }
+}
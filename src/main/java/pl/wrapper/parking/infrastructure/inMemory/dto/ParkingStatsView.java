@@ -0,0 +1,138 @@
+package pl.wrapper.parking.infrastructure.inMemory.dto;
+
+import pl.wrapper.parking.facade.dto.stats.basis.OccupancyInfo;
+import pl.wrapper.parking.facade.dto.stats.basis.ParkingInfo;
+import pl.wrapper.parking.facade.dto.stats.basis.ParkingStats;
+import pl.wrapper.parking.facade.dto.stats.daily.CollectiveDailyParkingStats;
+import pl.wrapper.parking.facade.dto.stats.daily.DailyParkingStatsResponse;
+import pl.wrapper.parking.facade.dto.stats.weekly.CollectiveWeeklyParkingStats;
+import pl.wrapper.parking.facade.dto.stats.weekly.WeeklyParkingStatsResponse;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Daily, weekly and collective stats of one lot, computed when a sample comes in instead of on every request.
+ * {@link #withDay} rebuilds the views of the sampled day and combines the weekly ones from the seven days, so
+ * the stats endpoints only pick the finished responses. Like the profile it is built from, it never changes.
+ */
+public final class ParkingStatsView {
+
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
+    private final ParkingInfo info;
+    private final DayView[] days;
+    private final WeeklyParkingStatsResponse weekly;
+    private final CollectiveWeeklyParkingStats collectiveWeekly;
+
+    private ParkingStatsView(ParkingInfo info, DayView[] days) {
+        this.info = info;
+        this.days = days;
+
+        double sum = 0.0;
+        int slots = 0;
+        DayView mostFree = null;
+        DayView leastFree = null;
+        Map<DayOfWeek, Map<LocalTime, ParkingStats>> statsMap = new EnumMap<>(DayOfWeek.class);
+        for (DayView view : days) {
+            if (view.slots() == 0) continue;
+            sum += view.sum();
+            slots += view.slots();
+            if (mostFree == null || view.maxAvailability() > mostFree.maxAvailability()) mostFree = view;
+            if (leastFree == null || view.minAvailability() < leastFree.minAvailability()) leastFree = view;
+            statsMap.put(view.day(), view.collective().statsMap());
+        }
+        ParkingStats stats = ParkingStats.of(slots == 0 ? 0.0 : sum / slots, info.totalSpots());
+        this.weekly = new WeeklyParkingStatsResponse(
+                info,
+                stats,
+                leastFree == null ? null : new OccupancyInfo(leastFree.day(), leastFree.daily().maxOccupancyAt()),
+                mostFree == null ? null : new OccupancyInfo(mostFree.day(), mostFree.daily().minOccupancyAt()));
+        this.collectiveWeekly = new CollectiveWeeklyParkingStats(info, Collections.unmodifiableMap(statsMap));
+    }
+
+    public static ParkingStatsView of(int parkingId, int totalSpots, OccupancyProfile profile) {
+        ParkingInfo info = new ParkingInfo(parkingId, totalSpots);
+        DayView[] days = new DayView[DAYS.length];
+        for (DayOfWeek day : DAYS) days[day.ordinal()] = DayView.of(info, profile, day);
+        return new ParkingStatsView(info, days);
+    }
+
+    public ParkingStatsView withDay(DayOfWeek day, OccupancyProfile profile) {
+        DayView[] next = days.clone();
+        next[day.ordinal()] = DayView.of(info, profile, day);
+        return new ParkingStatsView(info, next);
+    }
+
+    public ParkingInfo info() {
+        return info;
+    }
+
+    public DailyParkingStatsResponse daily(DayOfWeek day) {
+        return days[day.ordinal()].daily();
+    }
+
+    public CollectiveDailyParkingStats collectiveDaily(DayOfWeek day) {
+        return days[day.ordinal()].collective();
+    }
+
+    public WeeklyParkingStatsResponse weekly() {
+        return weekly;
+    }
+
+    public CollectiveWeeklyParkingStats collectiveWeekly() {
+        return collectiveWeekly;
+    }
+
+    // sum and extremes of the slot averages of one day, kept to combine the weekly views
+    private record DayView(
+            DayOfWeek day,
+            int slots,
+            double sum,
+            double maxAvailability,
+            double minAvailability,
+            DailyParkingStatsResponse daily,
+            CollectiveDailyParkingStats collective) {
+
+        static DayView of(ParkingInfo info, OccupancyProfile profile, DayOfWeek day) {
+            int slots = 0;
+            double sum = 0.0;
+            double maxAvailability = Double.NEGATIVE_INFINITY;
+            double minAvailability = Double.POSITIVE_INFINITY;
+            LocalTime maxOccupancyAt = null;
+            LocalTime minOccupancyAt = null;
+            Map<LocalTime, ParkingStats> statsMap = new LinkedHashMap<>();
+
+            for (int slot = 0; slot < profile.slotsPerDay(); slot++) {
+                if (!profile.hasSamples(day, slot)) continue;
+                double availability = profile.average(day, slot);
+                LocalTime time = profile.timeOf(slot);
+                slots++;
+                sum += availability;
+                if (availability > maxAvailability) {
+                    maxAvailability = availability;
+                    minOccupancyAt = time;
+                }
+                if (availability < minAvailability) {
+                    minAvailability = availability;
+                    maxOccupancyAt = time;
+                }
+                statsMap.put(time, ParkingStats.of(availability, info.totalSpots()));
+            }
+
+            ParkingStats stats = ParkingStats.of(slots == 0 ? 0.0 : sum / slots, info.totalSpots());
+            return new DayView(
+                    day,
+                    slots,
+                    sum,
+                    maxAvailability,
+                    minAvailability,
+                    new DailyParkingStatsResponse(info, stats, maxOccupancyAt, minOccupancyAt),
+                    new CollectiveDailyParkingStats(info, Collections.unmodifiableMap(statsMap)));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package pl.wrapper.parking.infrastructure.nominatim.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import pl.wrapper.parking.facade.dto.main.NominatimLocation;
+import pl.wrapper.parking.infrastructure.inMemory.GeocodingRepository;
+import pl.wrapper.parking.infrastructure.inMemory.dto.GeocodingData;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Geocoding results cached in two tiers: a bounded LRU in memory in front of {@link GeocodingRepository},
+ * which is persisted to disk and survives restarts. Addresses without results are cached as well, so
+ * repeated lookups of an unknown address do not reach Nominatim either. Failed calls are not cached.
+ */
+@Component
+@Primary
+@Slf4j
+public class CachingNominatimClient implements NominatimClient {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern SEPARATOR = Pattern.compile("\\s*,\\s*");
+
+    private final NominatimClient delegate;
+    private final GeocodingRepository repository;
+    private final Map<String, GeocodingData> memory;
+
+    public CachingNominatimClient(
+            @Qualifier("nominatimClient") NominatimClient delegate,
+            GeocodingRepository repository,
+            @Value("${maps.cache.size}") int maxEntries) {
+        this.delegate = delegate;
+        this.repository = repository;
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GeocodingData> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @Override
+    public Flux<NominatimLocation> search(String query, String format) {
+        String key = normalize(query, format);
+        // the lookup may read the disk tier, so it runs on subscription like the delegate call
+        return Flux.defer(() -> {
+            GeocodingData cached = lookup(key);
+            if (cached != null) return Flux.fromIterable(cached.locations());
+
+            return delegate.search(query, format)
+                    .collectList()
+                    .doOnNext(locations -> store(key, locations))
+                    .flatMapIterable(locations -> locations);
+        });
+    }
+
+    private GeocodingData lookup(String key) {
+        GeocodingData data = memory.get(key);
+        if (data != null && !repository.isExpired(data, Instant.now())) return data;
+
+        data = repository.get(key);
+        if (data == null) memory.remove(key);
+        else memory.put(key, data);
+        return data;
+    }
+
+    private void store(String key, List<NominatimLocation> locations) {
+        GeocodingData data = new GeocodingData(locations, Instant.now());
+        memory.put(key, data);
+        repository.add(key, data);
+        log.debug("Cached geocoding of '{}' with {} results", key, locations.size());
+    }
+
+    // "  Wybrzeże  Wyspiańskiego 27 ,Wrocław" and "wybrzeże wyspiańskiego 27, wrocław" are the same lookup
+    static String normalize(String query, String format) {
+        String address = WHITESPACE.matcher(query.strip().toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return format + '|' + SEPARATOR.matcher(address).replaceAll(", ");
+    }
+}
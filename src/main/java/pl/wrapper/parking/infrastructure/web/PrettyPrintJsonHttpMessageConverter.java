@@ -0,0 +1,33 @@
+package pl.wrapper.parking.infrastructure.web;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Json converter writing compact output straight to the response stream. A request with
+ * {@code ?pretty=true} gets indented output instead.
+ */
+public class PrettyPrintJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public static final String PRETTY_PARAMETER = "pretty";
+
+    public PrettyPrintJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    public static boolean isPrettyPrintRequested() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && Boolean.parseBoolean(attributes.getRequest().getParameter(PRETTY_PARAMETER));
+    }
+
+    @Override
+    protected ObjectWriter customizeWriter(ObjectWriter writer, @Nullable JavaType javaType, @Nullable MediaType contentType) {
+        return isPrettyPrintRequested() ? writer.withDefaultPrettyPrinter() : writer;
+    }
+}
@@ -0,0 +1,115 @@
+package pl.wrapper.parking.infrastructure.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import pl.wrapper.parking.infrastructure.error.HandleResult;
+import pl.wrapper.parking.infrastructure.error.Result;
+import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static pl.wrapper.parking.infrastructure.error.HandleResult.handleResult;
+import static pl.wrapper.parking.infrastructure.web.PrettyPrintJsonHttpMessageConverter.isPrettyPrintRequested;
+
+/**
+ * Serialized bodies of live responses, kept per response object. Snapshot data is immutable and the same
+ * instances are served until the next refresh, so each of them is written to json and hashed only once.
+ * Responses carry a strong ETag, Spring answers a matching If-None-Match with 304 without writing the body.
+ * Only pass objects that are reused between requests, freshly built values would never be hit again.
+ * Requests asking for pretty output bypass the cache and are rendered by the json converter.
+ */
+@Component
+public class SerializedResponseCache {
+
+    private static final int MAX_ENTRIES = 512;
+
+    private final ObjectMapper objectMapper;
+    private final PwrApiServerCaller pwrApiServerCaller;
+    private final Duration refreshInterval;
+    private final Map<IdentityKey, SerializedBody> bodies = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<IdentityKey, SerializedBody> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    });
+
+    public SerializedResponseCache(
+            ObjectMapper objectMapper,
+            PwrApiServerCaller pwrApiServerCaller,
+            @Value("${pwr-api.refresh.minutes}") long refreshMinutes) {
+        this.objectMapper = objectMapper;
+        this.pwrApiServerCaller = pwrApiServerCaller;
+        this.refreshInterval = Duration.ofMinutes(refreshMinutes);
+    }
+
+    /**
+     * Same output as {@link HandleResult#handleResult}, with the success body served from the cache. The pretty
+     * flag is read from the request right away, the result may complete on a thread without the request bound.
+     */
+    public Mono<ResponseEntity<?>> handleCachedResult(Mono<? extends Result<?>> toHandle, HttpStatus onSuccess, String uri) {
+        boolean pretty = isPrettyPrintRequested();
+        return toHandle.<ResponseEntity<?>>map(result -> !result.isSuccess() || pretty
+                ? handleResult(result, onSuccess, uri)
+                : respond(result.getData(), onSuccess));
+    }
+
+    public Mono<ResponseEntity<?>> ok(Mono<?> data) {
+        boolean pretty = isPrettyPrintRequested();
+        return data.<ResponseEntity<?>>map(value -> pretty ? ResponseEntity.ok(value) : respond(value, HttpStatus.OK));
+    }
+
+    private ResponseEntity<byte[]> respond(Object data, HttpStatus status) {
+        SerializedBody body = bodies.computeIfAbsent(new IdentityKey(data), key -> SerializedBody.of(write(data)));
+        return ResponseEntity.status(status)
+                .eTag(body.eTag())
+                .cacheControl(CacheControl.maxAge(timeToNextRefresh()).cachePublic())
+                .body(body.bytes());
+    }
+
+    // clients may keep the body until the scheduled refresh replaces the snapshot it was built from
+    private Duration timeToNextRefresh() {
+        return pwrApiServerCaller.currentSnapshot()
+                .map(snapshot -> refreshInterval.minus(snapshot.age()))
+                .map(remaining -> remaining.isNegative() ? Duration.ZERO : remaining)
+                .orElse(refreshInterval);
+    }
+
+    @SneakyThrows
+    private byte[] write(Object data) {
+        return objectMapper.writeValueAsBytes(data);
+    }
+
+    private record SerializedBody(byte[] bytes, String eTag) {
+        static SerializedBody of(byte[] bytes) {
+            return new SerializedBody(bytes, '"' + DigestUtils.md5DigestAsHex(bytes) + '"');
+        }
+    }
+
+    private static final class IdentityKey {
+        private final Object value;
+
+        IdentityKey(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IdentityKey key && key.value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+    }
+}
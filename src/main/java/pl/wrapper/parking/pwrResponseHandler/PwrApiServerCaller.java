@@ -1,10 +1,18 @@
 package pl.wrapper.parking.pwrResponseHandler;
 
 import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingSnapshot;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface PwrApiServerCaller {
     List<ParkingResponse> fetchParkingData();
-    List<Object> getAllCharsForToday();
+    ParkingSnapshot fetchSnapshot();
+    Optional<ParkingSnapshot> currentSnapshot();
+
+    // non-blocking variants for the request path, they only wait for the api when nothing was fetched yet
+    Mono<ParkingSnapshot> snapshot();
+    Mono<List<Object>> getAllChartsForToday();
 }
@@ -11,6 +11,6 @@ class CacheCustomizer implements CacheManagerCustomizer<ConcurrentMapCacheManage
 
     @Override
     public void customize(ConcurrentMapCacheManager cacheManager) {
-        cacheManager.setCacheNames(List.of("parkingListCache", "chartCache"));
+        cacheManager.setCacheNames(List.of("chartCache"));
     }
 }
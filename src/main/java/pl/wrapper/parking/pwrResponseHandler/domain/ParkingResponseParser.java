@@ -0,0 +1,227 @@
+package pl.wrapper.parking.pwrResponseHandler.domain;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import pl.wrapper.parking.pwrResponseHandler.dto.Address;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token level decoder for the {@code get_parks} payload. Records are built straight from the stream; a record
+ * with a malformed value is skipped on its own instead of failing the whole fetch. Skipped records still
+ * consume their parking id, so ids of the remaining parking lots do not shift.
+ */
+@Slf4j
+final class ParkingResponseParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String UNKNOWN = "unknown";
+
+    private ParkingResponseParser() {}
+
+    static List<ParkingResponse> parse(InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return parse(parser);
+        }
+    }
+
+    static List<ParkingResponse> parse(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return parse(parser);
+        }
+    }
+
+    private static List<ParkingResponse> parse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT)
+            throw new IOException("Expected a json object as get_parks response");
+
+        List<ParkingResponse> result = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("places".equals(field) && value == JsonToken.START_ARRAY) parsePlaces(parser, result);
+            else parser.skipChildren();
+        }
+        return result;
+    }
+
+    private static void parsePlaces(JsonParser parser, List<ParkingResponse> result) throws IOException {
+        int parkingId = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            ParkingResponse parking = parseParking(parser, ++parkingId);
+            if (parking != null) result.add(parking);
+        }
+    }
+
+    private static ParkingResponse parseParking(JsonParser parser, int parkingId) throws IOException {
+        ParkingFields fields = new ParkingFields();
+        String invalidField = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (invalidField != null) {
+                parser.skipChildren();
+                continue;
+            }
+            try {
+                fields.read(field, parser);
+            } catch (NumberFormatException | DateTimeParseException e) {
+                invalidField = field;
+                parser.skipChildren();
+            }
+        }
+
+        if (invalidField == null && fields.hasCoordinates()) return fields.toResponse(parkingId);
+        log.warn(
+                "Skipping parking {} from Pwr api: {}",
+                parkingId,
+                invalidField != null ? "malformed value of " + invalidField : "missing coordinates");
+        return null;
+    }
+
+    private static final class ParkingFields {
+        private int freeSpots;
+        private int totalSpots;
+        private String name = UNKNOWN;
+        private String symbol = UNKNOWN;
+        private LocalTime openingHours;
+        private LocalTime closingHours;
+        private String address = UNKNOWN;
+        private float geoLatitude = Float.NaN;
+        private float geoLongitude = Float.NaN;
+        private short trend;
+        private String urlToPhoto = UNKNOWN;
+
+        void read(String field, JsonParser parser) throws IOException {
+            switch (field) {
+                case "liczba_miejsc" -> freeSpots = readInt(parser);
+                case "places" -> totalSpots = readInt(parser);
+                case "nazwa" -> name = readString(parser, name);
+                case "symbol" -> symbol = readString(parser, symbol);
+                case "open_hour" -> openingHours = readTime(parser);
+                case "close_hour" -> closingHours = readTime(parser);
+                case "address" -> address = readString(parser, address).strip();
+                case "geo_lat" -> geoLatitude = readFloat(parser);
+                case "geo_lan" -> geoLongitude = readFloat(parser);
+                case "trend" -> trend = readShort(parser);
+                case "photo" -> urlToPhoto = readString(parser, urlToPhoto);
+                default -> parser.skipChildren();
+            }
+        }
+
+        boolean hasCoordinates() {
+            return !Float.isNaN(geoLatitude) && !Float.isNaN(geoLongitude);
+        }
+
+        ParkingResponse toResponse(int parkingId) {
+            return ParkingResponse.builder()
+                    .parkingId(parkingId)
+                    .name(name)
+                    .freeSpots(Math.max(0, Math.min(totalSpots, freeSpots)))
+                    .symbol(symbol)
+                    .openingHours(openingHours)
+                    .closingHours(closingHours)
+                    .totalSpots(totalSpots)
+                    .address(new Address(address, geoLatitude, geoLongitude))
+                    .trend(trend)
+                    .urlToPhoto(urlToPhoto)
+                    .build();
+        }
+    }
+
+    private static String readString(JsonParser parser, String defaultValue) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            parser.skipChildren();
+            return defaultValue;
+        }
+        String value = parser.getValueAsString();
+        return value == null ? defaultValue : value;
+    }
+
+    private static int readInt(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT -> parser.getIntValue();
+            case VALUE_STRING -> parseInt(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            case VALUE_NULL -> 0;
+            default -> throw new NumberFormatException("Not an integer: " + parser.currentToken());
+        };
+    }
+
+    private static short readShort(JsonParser parser) throws IOException {
+        int value = readInt(parser);
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE)
+            throw new NumberFormatException("Value out of range: " + value);
+        return (short) value;
+    }
+
+    private static float readFloat(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getFloatValue();
+            case VALUE_STRING -> Float.parseFloat(parser.getText());
+            default -> throw new NumberFormatException("Not a number: " + parser.currentToken());
+        };
+    }
+
+    private static LocalTime readTime(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) return null;
+        if (parser.currentToken() != JsonToken.VALUE_STRING)
+            throw new DateTimeParseException("Not a time: " + parser.currentToken(), "", 0);
+
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (length == 8 && chars[offset + 2] == ':' && chars[offset + 5] == ':') {
+            int hour = twoDigits(chars, offset);
+            int minute = twoDigits(chars, offset + 3);
+            int second = twoDigits(chars, offset + 6);
+            if (hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second < 60)
+                return LocalTime.of(hour, minute, second);
+        }
+        return LocalTime.parse(parser.getText(), DateTimeFormatter.ISO_LOCAL_TIME);
+    }
+
+    private static int twoDigits(char[] chars, int offset) {
+        int tens = chars[offset] - '0';
+        int ones = chars[offset + 1] - '0';
+        if (tens < 0 || tens > 9 || ones < 0 || ones > 9) return -1;
+        return tens * 10 + ones;
+    }
+
+    // Integer.parseInt on the raw token characters, so no string is created for numeric fields
+    private static int parseInt(char[] chars, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && Character.isWhitespace(chars[start])) start++;
+        while (end > start && Character.isWhitespace(chars[end - 1])) end--;
+        if (start == end) throw new NumberFormatException("Empty integer value");
+
+        boolean negative = chars[start] == '-';
+        if (negative || chars[start] == '+') start++;
+        if (start == end) throw new NumberFormatException("Sign without digits");
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) throw new NumberFormatException("Not an integer: " + new String(chars, offset, length));
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) throw new NumberFormatException("Integer overflow");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) throw new NumberFormatException("Integer overflow");
+        return (int) value;
+    }
+}
@@ -2,20 +2,18 @@ package pl.wrapper.parking.pwrResponseHandler.domain;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.MediaType;
-import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import pl.wrapper.parking.pwrResponseHandler.dto.Address;
 import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 
 @Profile("prod")
@@ -23,6 +21,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public final class PwrApiCaller {
 
+    // get_parks answers with a few KB, anything past this is refused (DataBufferLimitException) before parsing
+    private static final int MAX_RESPONSE_BYTES = 1024 * 1024;
+
     private final WebClient webClient;
 
     public Mono<List<ParkingResponse>> fetchParkingPlaces() {
@@ -31,14 +32,9 @@ public final class PwrApiCaller {
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(createDummyParkingMap())
                 .retrieve()
-                .bodyToMono(HashMap.class)
-                .flatMap(parkingResponses -> {
-                    try {
-                        return Mono.just(parseResponse(parkingResponses.get("places")));
-                    } catch (ClassCastException e) {
-                        return Mono.error(e);
-                    }
-                });
+                .bodyToFlux(DataBuffer.class)
+                .as(body -> DataBufferUtils.join(body, MAX_RESPONSE_BYTES))
+                .flatMap(PwrApiCaller::parseResponse);
     }
 
     private static HashMap<String, String> createDummyParkingMap() {
@@ -47,43 +43,12 @@ public final class PwrApiCaller {
         return body;
     }
 
-    @SuppressWarnings("unchecked")
-    private static List<ParkingResponse> parseResponse(Object unparsedResponse) throws ClassCastException {
-        List<ParkingResponse> returnList = new ArrayList<>();
-        ArrayList<Object> firstTierCastList = (ArrayList<Object>) unparsedResponse;
-        int parkingId = 0;
-        for (Object currentParkingPrecast : firstTierCastList) {
-            LinkedHashMap<String, String> currentParking;
-            try {
-                currentParking = (LinkedHashMap<String, String>) currentParkingPrecast;
-            } catch (ClassCastException e) {
-                continue;
-            }
-            int boundlessFreeSpots = Integer.parseInt(currentParking.getOrDefault("liczba_miejsc", "0"));
-            int totalSpots = Integer.parseInt(currentParking.getOrDefault("places", "0"));
-            ParkingResponse currentResponse = ParkingResponse.builder()
-                    .parkingId(++parkingId)
-                    .name(currentParking.getOrDefault("nazwa", "unknown"))
-                    .freeSpots(Math.max(0, Math.min(totalSpots, boundlessFreeSpots)))
-                    .symbol(currentParking.getOrDefault("symbol", "unknown"))
-                    .openingHours(PwrApiCaller.getParsedTime(currentParking.get("open_hour")))
-                    .closingHours(PwrApiCaller.getParsedTime(currentParking.get("close_hour")))
-                    .totalSpots(totalSpots)
-                    .address(new Address(
-                            currentParking.getOrDefault("address", "unknown").strip(),
-                            Float.parseFloat(currentParking.get("geo_lat")),
-                            Float.parseFloat(currentParking.get("geo_lan"))))
-                    .trend(Short.parseShort(currentParking.getOrDefault("trend", "0")))
-                    .urlToPhoto(currentParking.getOrDefault("photo", "unknown"))
-                    .build();
-            returnList.add(currentResponse);
+    private static Mono<List<ParkingResponse>> parseResponse(DataBuffer body) {
+        try (InputStream stream = body.asInputStream(true)) {
+            return Mono.just(ParkingResponseParser.parse(stream));
+        } catch (IOException e) {
+            return Mono.error(e);
         }
-        return returnList;
-    }
-
-    private static LocalTime getParsedTime(@Nullable String time) {
-        if (time == null) return null;
-        return LocalTime.parse(time, DateTimeFormatter.ISO_LOCAL_TIME);
     }
 
     private static HashMap<String, String> createDummyChartMap(int forId) {
@@ -1,6 +1,5 @@
 package pl.wrapper.parking.pwrResponseHandler.domain;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -8,28 +7,93 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
 import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingSnapshot;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class PwrApiServerCallerImpl implements PwrApiServerCaller {
 
     private static final int CACHE_TTL_MIN = 3;
-    private final PwrApiCaller pwrApiCaller;
+
+    // concurrent fetches join the one that is already in flight instead of starting their own;
+    // the fetch publishes its snapshot once, every caller that joined it gets that same snapshot
+    private final SingleFlight<ParkingSnapshot> parkingFetch;
+    private final SingleFlight<List<Object>> chartFetch;
+
+    // last successfully fetched data; replaced as a whole, never mutated
+    private final AtomicReference<ParkingSnapshot> snapshot = new AtomicReference<>();
+
+    public PwrApiServerCallerImpl(PwrApiCaller pwrApiCaller) {
+        this.parkingFetch = new SingleFlight<>(() -> {
+            log.info("Fetching new data from Pwr api.");
+            return pwrApiCaller.fetchParkingPlaces()
+                    .doOnSuccess(data -> log.info("Data fetched successfully"))
+                    .map(this::publish);
+        });
+        this.chartFetch = new SingleFlight<>(() -> {
+            log.info("Fetching new chart data from Pwr api.");
+            return pwrApiCaller.fetchAllParkingCharts().doOnSuccess(charts -> log.info("Charts fetched successfully"));
+        });
+    }
 
     @Override
-    @Cacheable("parkingListCache")
     public List<ParkingResponse> fetchParkingData() {
-        log.info("Fetching new data from Pwr api.");
-        List<ParkingResponse> data = pwrApiCaller.fetchParkingPlaces().block();
-        log.info("Data fetched successfully");
-        return data;
+        return fetchSnapshot().parkings();
+    }
+
+    @Override
+    public ParkingSnapshot fetchSnapshot() {
+        ParkingSnapshot current = snapshot.get();
+        if (current != null) return current;
+        // nothing fetched yet (startup or upstream down since then), so this caller has to wait for the api
+        return parkingFetch.block();
+    }
+
+    @Override
+    public Optional<ParkingSnapshot> currentSnapshot() {
+        return Optional.ofNullable(snapshot.get());
+    }
+
+    @Override
+    public Mono<ParkingSnapshot> snapshot() {
+        return Mono.defer(() -> {
+            ParkingSnapshot current = snapshot.get();
+            return current != null ? Mono.just(current) : parkingFetch.get();
+        });
+    }
+
+    @Scheduled(fixedRateString = "${pwr-api.refresh.minutes}", timeUnit = TimeUnit.MINUTES)
+    public void refreshSnapshot() {
+        parkingFetch.get().subscribe(published -> {}, this::handleRefreshFailure);
+    }
+
+    private ParkingSnapshot publish(List<ParkingResponse> parkings) {
+        ParkingSnapshot published = snapshot.updateAndGet(previous -> previous == null
+                ? new ParkingSnapshot(1, parkings, Instant.now())
+                : previous.next(parkings));
+        log.info("Parking snapshot updated to version {}", published.version());
+        return published;
+    }
+
+    private void handleRefreshFailure(Throwable e) {
+        ParkingSnapshot current = snapshot.get();
+        if (current == null) log.error("Parking snapshot refresh failed, no data available yet: {}", e.getMessage());
+        else
+            log.warn(
+                    "Parking snapshot refresh failed, still serving version {} fetched {}s ago: {}",
+                    current.version(),
+                    current.age().toSeconds(),
+                    e.getMessage());
     }
 
-    @CacheEvict(value = {"parkingListCache", "chartCache"}, allEntries = true)
+    @CacheEvict(value = "chartCache", allEntries = true)
     @Scheduled(fixedRate = CACHE_TTL_MIN, timeUnit = TimeUnit.MINUTES)
     public void flushCache() {
         log.info("Cache flushed. New data can be fetched.");
@@ -38,10 +102,7 @@ public class PwrApiServerCallerImpl implements PwrApiServerCaller {
 
     @Override
     @Cacheable("chartCache")
-    public List<Object> getAllCharsForToday() {
-        log.info("Fetching new chart data from Pwr api.");
-        List<Object> charts = pwrApiCaller.fetchAllParkingCharts().block();
-        log.info("Charts fetched successfully");
-        return charts;
+    public Mono<List<Object>> getAllChartsForToday() {
+        return chartFetch.get();
     }
 }
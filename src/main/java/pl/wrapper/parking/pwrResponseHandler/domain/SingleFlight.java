@@ -0,0 +1,52 @@
+package pl.wrapper.parking.pwrResponseHandler.domain;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls to the same upstream source. While a fetch is in flight every caller gets the
+ * same pending result instead of starting its own request; the slot is released as soon as the fetch
+ * completes, so the next call after that goes upstream again.
+ */
+final class SingleFlight<T> {
+
+    private final Supplier<Mono<T>> source;
+    private final AtomicReference<CompletableFuture<T>> inFlight = new AtomicReference<>();
+
+    SingleFlight(Supplier<Mono<T>> source) {
+        this.source = source;
+    }
+
+    Mono<T> get() {
+        return Mono.fromFuture(join(), true);
+    }
+
+    T block() {
+        return get().block();
+    }
+
+    private CompletableFuture<T> join() {
+        while (true) {
+            CompletableFuture<T> current = inFlight.get();
+            if (current != null) return current;
+
+            CompletableFuture<T> candidate = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, candidate)) {
+                candidate.whenComplete((result, error) -> inFlight.compareAndSet(candidate, null));
+                subscribe(candidate);
+                return candidate;
+            }
+        }
+    }
+
+    private void subscribe(CompletableFuture<T> target) {
+        try {
+            source.get().subscribe(target::complete, target::completeExceptionally, () -> target.complete(null));
+        } catch (RuntimeException e) {
+            target.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package pl.wrapper.parking.pwrResponseHandler.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+public record ParkingSnapshot(long version, List<ParkingResponse> parkings, Instant fetchedAt) {
+
+    public ParkingSnapshot {
+        parkings = List.copyOf(parkings);
+    }
+
+    public ParkingSnapshot next(List<ParkingResponse> parkings) {
+        return new ParkingSnapshot(version + 1, parkings, Instant.now());
+    }
+
+    public Duration age() {
+        return Duration.between(fetchedAt, Instant.now());
+    }
+}
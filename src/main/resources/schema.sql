@@ -1,2 +1,5 @@
 CREATE SCHEMA IF NOT EXISTS historic;
-CREATE TABLE IF NOT EXISTS historic.historic_data(data_table SMALLINT[][] NOT NULL, date DATE NOT NULL PRIMARY KEY);
\ No newline at end of file
+CREATE TABLE IF NOT EXISTS historic.historic_data(data_table SMALLINT[][] NOT NULL, date DATE NOT NULL PRIMARY KEY);
+CREATE TABLE IF NOT EXISTS historic.historic_data_packed(data BYTEA NOT NULL, date DATE NOT NULL PRIMARY KEY);
+CREATE TABLE IF NOT EXISTS historic.historic_rollup_hourly(date DATE NOT NULL, parking_id SMALLINT NOT NULL, hour SMALLINT NOT NULL, min_free SMALLINT NOT NULL, max_free SMALLINT NOT NULL, sum_free INTEGER NOT NULL, samples SMALLINT NOT NULL, PRIMARY KEY (date, parking_id, hour));
+CREATE TABLE IF NOT EXISTS historic.historic_rollup_daily(date DATE NOT NULL, parking_id SMALLINT NOT NULL, min_free SMALLINT NOT NULL, max_free SMALLINT NOT NULL, sum_free INTEGER NOT NULL, samples SMALLINT NOT NULL, PRIMARY KEY (date, parking_id));
\ No newline at end of file
@@ -0,0 +1,29 @@
+package pl.wrapper.parking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadsTests {
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Test
+    void scheduledJobsRunOnVirtualThreads() throws Exception {
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        taskScheduler.schedule(() -> thread.complete(Thread.currentThread()), Instant.now());
+
+        assertThat(thread.get(5, TimeUnit.SECONDS).isVirtual()).isTrue();
+    }
+}
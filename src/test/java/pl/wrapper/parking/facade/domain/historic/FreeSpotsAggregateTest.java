@@ -0,0 +1,34 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeSpotsAggregateTest {
+
+    @Test
+    void testOf_SkipsGaps() {
+        short[] row = {-1, 10, 4, -1, 7, 30};
+
+        FreeSpotsAggregate aggregate = FreeSpotsAggregate.of(row, 0, 5);
+
+        assertEquals(new FreeSpotsAggregate((short) 4, (short) 10, 21, 3), aggregate);
+        assertEquals(7.0, aggregate.average());
+    }
+
+    @Test
+    void testOf_OnlyGaps_ReturnsNull() {
+        assertNull(FreeSpotsAggregate.of(new short[] {-1, -1, 5}, 0, 2));
+        assertNull(FreeSpotsAggregate.of(new short[] {5}, 1, 1));
+    }
+
+    @Test
+    void testFirstSlotOfHour_CoversEveryIntervalLength() {
+        assertEquals(12, HistoricRollupStore.firstSlotOfHour(1, 5));
+        assertEquals(288, HistoricRollupStore.firstSlotOfHour(24, 5));
+        assertEquals(2, HistoricRollupStore.firstSlotOfHour(1, 45));
+        assertEquals(1, HistoricRollupStore.firstSlotOfHour(1, 480));
+        assertEquals(1, HistoricRollupStore.firstSlotOfHour(8, 480));
+        assertEquals(13, HistoricRollupStore.hourOfSlot(13 * 12 + 11, 5));
+    }
+}
@@ -0,0 +1,71 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.wrapper.parking.facade.ParkingHistoricDataService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class HistoricBinaryWriterTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 10);
+
+    @Test
+    void testDay_WritesHeaderAndLittleEndianRows() throws IOException {
+        HistoricBinaryWriter writer = new HistoricBinaryWriter(null, 480);
+        short[][] table = {{1, -1, 300}, {4, 5, 6}};
+
+        ByteBuffer frames = written(writer.day(DATE, table));
+
+        assertEquals(HistoricBinaryWriter.HEADER_BYTES + 6 * Short.BYTES, frames.remaining());
+        assertFrame(frames, DATE, 480, table);
+        assertFalse(frames.hasRemaining());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPeriod_WritesOneFramePerDayInOrder() throws IOException {
+        ParkingHistoricDataService service = mock(ParkingHistoricDataService.class);
+        short[][] firstDay = {{1, 2, 3}};
+        short[][] secondDay = {{4, 5, 6}, {7, 8, 9}, {10, 11, 12}};
+        doAnswer(invocation -> {
+            BiConsumer<LocalDate, short[][]> consumer = invocation.getArgument(2);
+            consumer.accept(DATE, firstDay);
+            consumer.accept(DATE.plusDays(2), secondDay);
+            return null;
+        }).when(service).forEachDayTableOfPeriod(eq(DATE), eq(null), any());
+        HistoricBinaryWriter writer = new HistoricBinaryWriter(service, 480);
+
+        ByteBuffer frames = written(writer.period(DATE, null));
+
+        assertFrame(frames, DATE, 480, firstDay);
+        assertFrame(frames, DATE.plusDays(2), 480, secondDay);
+        assertFalse(frames.hasRemaining());
+    }
+
+    private static ByteBuffer written(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void assertFrame(ByteBuffer frames, LocalDate date, int intervalLength, short[][] table) {
+        assertEquals(date, LocalDate.ofEpochDay(frames.getInt()));
+        assertEquals(table.length, frames.getShort());
+        assertEquals(table[0].length, frames.getShort());
+        assertEquals(intervalLength, frames.getShort());
+        for (short[] row : table)
+            for (short value : row) assertEquals(value, frames.getShort());
+    }
+}
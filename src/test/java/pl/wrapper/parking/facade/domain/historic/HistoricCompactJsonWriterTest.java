@@ -0,0 +1,71 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HistoricCompactJsonWriterTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 10);
+
+    private final HistoricCompactJsonWriter writer = new HistoricCompactJsonWriter(null, new ObjectMapper(), 480);
+
+    @Test
+    void testDay_RangeOfLots_WritesOnlyThoseLots() throws IOException {
+        short[][] table = {{1, 2, 3}, {4, -1, 6}, {7, 8, 9}};
+
+        String json = written(writer.day(DATE, table, 1, 3));
+
+        assertEquals("{\"startTime\":\"00:00\",\"intervalMinutes\":480,\"parkings\":["
+                + "{\"parkingId\":1,\"days\":[{\"atDate\":\"2024-03-10\",\"freeSpots\":[4,-1,6]}]},"
+                + "{\"parkingId\":2,\"days\":[{\"atDate\":\"2024-03-10\",\"freeSpots\":[7,8,9]}]}]}", json);
+    }
+
+    @Test
+    void testWrite_LotMissingOnSomeDays_SkipsThoseDays() throws IOException {
+        short[][] firstDay = {{1, 2, 3}};
+        short[][] secondDay = {{4, 5, 6}, {7, 8, 9}};
+
+        String json = written(writer.write(consumer -> {
+            consumer.accept(DATE, firstDay);
+            consumer.accept(DATE.plusDays(1), secondDay);
+        }, 0, 2));
+
+        assertEquals("{\"startTime\":\"00:00\",\"intervalMinutes\":480,\"parkings\":["
+                + "{\"parkingId\":0,\"days\":[{\"atDate\":\"2024-03-10\",\"freeSpots\":[1,2,3]},"
+                + "{\"atDate\":\"2024-03-11\",\"freeSpots\":[4,5,6]}]},"
+                + "{\"parkingId\":1,\"days\":[{\"atDate\":\"2024-03-11\",\"freeSpots\":[7,8,9]}]}]}", json);
+    }
+
+    @Test
+    void testWrite_SeveralLots_ReadsDaysOnce() throws IOException {
+        short[][] table = {{1}, {2}, {3}};
+        AtomicInteger passes = new AtomicInteger();
+
+        String json = written(writer.write(consumer -> {
+            passes.incrementAndGet();
+            consumer.accept(DATE, table);
+            consumer.accept(DATE.plusDays(1), table);
+        }, 0, 3));
+
+        assertEquals(1, passes.get());
+        assertEquals("{\"startTime\":\"00:00\",\"intervalMinutes\":480,\"parkings\":["
+                + "{\"parkingId\":0,\"days\":[{\"atDate\":\"2024-03-10\",\"freeSpots\":[1]},{\"atDate\":\"2024-03-11\",\"freeSpots\":[1]}]},"
+                + "{\"parkingId\":1,\"days\":[{\"atDate\":\"2024-03-10\",\"freeSpots\":[2]},{\"atDate\":\"2024-03-11\",\"freeSpots\":[2]}]},"
+                + "{\"parkingId\":2,\"days\":[{\"atDate\":\"2024-03-10\",\"freeSpots\":[3]},{\"atDate\":\"2024-03-11\",\"freeSpots\":[3]}]}]}", json);
+    }
+
+    private static String written(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricDayCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+    @Test
+    void testPut_PastDay_IsReturned() {
+        HistoricDayCache cache = new HistoricDayCache(1024 * 1024);
+        short[][] table = {{1, 2, 3}};
+
+        cache.put(TODAY.minusDays(1), table, TODAY);
+        cache.put(TODAY.minusDays(2), HistoricDayCache.NO_DATA, TODAY);
+
+        assertSame(table, cache.get(TODAY.minusDays(1), TODAY));
+        assertSame(HistoricDayCache.NO_DATA, cache.get(TODAY.minusDays(2), TODAY));
+        assertNull(cache.get(TODAY.minusDays(3), TODAY));
+    }
+
+    @Test
+    void testPut_TodayOrLater_IsIgnored() {
+        HistoricDayCache cache = new HistoricDayCache(1024 * 1024);
+
+        cache.put(TODAY, new short[][] {{1}}, TODAY);
+        cache.put(TODAY.plusDays(1), new short[][] {{1}}, TODAY);
+
+        assertNull(cache.get(TODAY, TODAY));
+        assertNull(cache.get(TODAY.plusDays(1), TODAY));
+        assertEquals(0, cache.usedBytes());
+    }
+
+    @Test
+    void testPutToday_NextDay_MovesTableToPastDays() {
+        HistoricDayCache cache = new HistoricDayCache(1024 * 1024);
+        short[][] first = {{1, -1}};
+        short[][] second = {{1, 2}};
+
+        cache.putToday(TODAY, first);
+        cache.putToday(TODAY, second);
+        assertSame(second, cache.get(TODAY, TODAY));
+
+        LocalDate tomorrow = TODAY.plusDays(1);
+        assertSame(second, cache.get(TODAY, tomorrow));
+        assertNull(cache.get(tomorrow, tomorrow));
+    }
+
+    @Test
+    void testWithSlot_CopiesOnlyChangedRows() {
+        short[][] table = {{-1, -1}, {-1, -1}, {-1, -1}};
+
+        short[][] updated = HistoricDayCache.withSlot(table, 1, 1, new short[] {12, 30});
+
+        assertArrayEquals(new short[][] {{-1, -1}, {-1, 12}, {-1, 30}}, updated);
+        assertArrayEquals(new short[][] {{-1, -1}, {-1, -1}, {-1, -1}}, table);
+        assertSame(table[0], updated[0]);
+    }
+
+    @Test
+    void testPut_OverByteBound_EvictsLeastRecentlyUsed() {
+        short[][] table = new short[5][288];
+        HistoricDayCache cache = new HistoricDayCache(3 * 3000);
+
+        cache.put(TODAY.minusDays(1), table, TODAY);
+        cache.put(TODAY.minusDays(2), table, TODAY);
+        cache.put(TODAY.minusDays(3), table, TODAY);
+        cache.get(TODAY.minusDays(1), TODAY);
+        cache.put(TODAY.minusDays(4), table, TODAY);
+
+        assertNotNull(cache.get(TODAY.minusDays(1), TODAY));
+        assertNull(cache.get(TODAY.minusDays(2), TODAY));
+        assertNotNull(cache.get(TODAY.minusDays(4), TODAY));
+        assertTrue(cache.usedBytes() <= 3 * 3000);
+    }
+}
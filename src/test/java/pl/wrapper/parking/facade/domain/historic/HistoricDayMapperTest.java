@@ -0,0 +1,52 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricDayMapperTest {
+
+    @Test
+    void testMapAhead_LargePeriod_KeepsDayOrderAndReadsOnCallingThread() {
+        HistoricDayMapper mapper = new HistoricDayMapper(5, 4);
+        Thread caller = Thread.currentThread();
+        List<Integer> days = IntStream.range(0, HistoricDayMapper.CHUNK_DAYS * 10 + 3).boxed().toList();
+        Iterator<Integer> source = days.iterator();
+        Iterator<Integer> callerOnlySource = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                assertSame(caller, Thread.currentThread());
+                return source.next();
+            }
+        };
+
+        List<Integer> results = new ArrayList<>();
+        mapper.mapAhead(callerOnlySource, day -> day * 2).forEachRemaining(results::add);
+
+        assertEquals(days.stream().map(day -> day * 2).toList(), results);
+        mapper.shutdown();
+    }
+
+    @Test
+    void testMapAhead_BelowThreshold_RunsOnCallingThread() {
+        HistoricDayMapper mapper = new HistoricDayMapper(64, 4);
+        Thread caller = Thread.currentThread();
+
+        List<Boolean> onCaller = new ArrayList<>();
+        mapper.mapAhead(List.of(1, 2, 3).iterator(), day -> Thread.currentThread() == caller)
+                .forEachRemaining(onCaller::add);
+
+        assertEquals(List.of(true, true, true), onCaller);
+        mapper.shutdown();
+    }
+}
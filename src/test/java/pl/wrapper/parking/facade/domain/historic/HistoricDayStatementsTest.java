@@ -0,0 +1,89 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HistoricDayStatementsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Test
+    void testCreateDay_BindsDayAndTableSize() throws SQLException {
+        when(connection.prepareStatement(HistoricDayStatements.CREATE_DAY_SQL)).thenReturn(statement);
+
+        HistoricDayStatements.createDay(connection, DAY, 6, 288);
+
+        verify(statement).setObject(1, DAY);
+        verify(statement).setInt(2, 6);
+        verify(statement).setInt(3, 288);
+        verify(statement).executeUpdate();
+        verify(statement).close();
+    }
+
+    @Test
+    void testGrowDay_AppendsOnlyMissingRows() throws SQLException {
+        when(connection.prepareStatement(HistoricDayStatements.GROW_DAY_SQL)).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+
+        assertEquals(1, HistoricDayStatements.growDay(connection, DAY, 7, 288));
+
+        assertTrue(HistoricDayStatements.GROW_DAY_SQL.contains(
+                "data_table || array_fill(-1::smallint, ARRAY[? - array_length(data_table, 1), ?])"));
+        assertTrue(HistoricDayStatements.GROW_DAY_SQL.endsWith("WHERE date = ? AND array_length(data_table, 1) < ?"));
+        verify(statement).setInt(1, 7);
+        verify(statement).setInt(2, 288);
+        verify(statement).setObject(3, DAY);
+        verify(statement).setInt(4, 7);
+    }
+
+    @Test
+    void testUpdateSlot_BindsOneBasedSliceAndColumn() throws SQLException {
+        Array array = mock(Array.class);
+        when(connection.prepareStatement(HistoricDayStatements.UPDATE_SLOT_SQL)).thenReturn(statement);
+        ArgumentCaptor<Object[]> column = ArgumentCaptor.forClass(Object[].class);
+        when(connection.createArrayOf(eq("int2"), column.capture())).thenReturn(array);
+        when(statement.executeUpdate()).thenReturn(1);
+
+        assertEquals(1, HistoricDayStatements.updateSlot(connection, DAY, 100, 1, new short[] {12, -1, 30}));
+
+        verify(statement).setInt(1, 2);
+        verify(statement).setInt(2, 4);
+        verify(statement).setInt(3, 101);
+        verify(statement).setInt(4, 101);
+        verify(statement).setArray(5, array);
+        verify(statement).setObject(6, DAY);
+        assertArrayEquals(new Short[][] {{12}, {-1}, {30}}, column.getValue());
+    }
+
+    @Test
+    void testUpdateSlot_StatementFails_ClosesStatement() throws SQLException {
+        when(connection.prepareStatement(HistoricDayStatements.UPDATE_SLOT_SQL)).thenReturn(statement);
+        when(connection.createArrayOf(eq("int2"), any())).thenReturn(mock(Array.class));
+        when(statement.executeUpdate()).thenThrow(new SQLException("array subscript out of range"));
+
+        assertThrows(SQLException.class,
+                () -> HistoricDayStatements.updateSlot(connection, DAY, 0, 1, new short[] {1}));
+        verify(statement).close();
+    }
+}
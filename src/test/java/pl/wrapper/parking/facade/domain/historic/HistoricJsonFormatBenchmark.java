@@ -0,0 +1,94 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.wrapper.parking.facade.dto.historicData.HistoricDayData;
+import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodParkingData;
+import pl.wrapper.parking.facade.dto.historicData.TimestampEntry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A period of all lots as {@link HistoricPeriodParkingData} with one {@link TimestampEntry} per interval vs the
+ * compact form written by {@link HistoricCompactJsonWriter}. Both include building what they serialize, the DTOs
+ * for {@code entries}. Run with {@code -prof gc}, payload sizes are in Wiki/Historic data.md.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoricJsonFormatBenchmark {
+
+    private static final int INTERVAL_MINUTES = 5;
+
+    @Param({"1", "31"})
+    private int days;
+
+    private ObjectMapper objectMapper;
+    private HistoricCompactJsonWriter compactWriter;
+    private List<LocalDate> dates;
+    private List<short[][]> tables;
+    private List<String> startTimes;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        compactWriter = new HistoricCompactJsonWriter(null, objectMapper, INTERVAL_MINUTES);
+        Random random = new Random(42);
+        dates = new ArrayList<>();
+        tables = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            dates.add(LocalDate.of(2025, 1, 1).plusDays(day));
+            tables.add(HistoricTableCodecBenchmark.syntheticDay(random));
+        }
+        startTimes = new ArrayList<>();
+        for (LocalTime time = LocalTime.MIDNIGHT; startTimes.size() < 24 * 60 / INTERVAL_MINUTES; time = time.plusMinutes(INTERVAL_MINUTES))
+            startTimes.add(String.format("%02d:%02d", time.getHour(), time.getMinute()));
+    }
+
+    @Benchmark
+    public byte[] entries() throws IOException {
+        int parkingCount = tables.getFirst().length;
+        List<HistoricPeriodParkingData> resultList = new ArrayList<>(parkingCount);
+        for (int parkingId = 0; parkingId < parkingCount; parkingId++) {
+            List<HistoricDayData> dayList = new ArrayList<>(days);
+            for (int day = 0; day < days; day++) {
+                short[] row = tables.get(day)[parkingId];
+                List<TimestampEntry> entryList = new ArrayList<>(row.length);
+                for (int slot = 0; slot < row.length; slot++) entryList.add(new TimestampEntry(startTimes.get(slot), row[slot]));
+                dayList.add(new HistoricDayData(dates.get(day), entryList));
+            }
+            resultList.add(new HistoricPeriodParkingData((short) parkingId, dayList));
+        }
+        return objectMapper.writeValueAsBytes(resultList);
+    }
+
+    @Benchmark
+    public byte[] compact() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        compactWriter.write(consumer -> {
+            for (int day = 0; day < days; day++) consumer.accept(dates.get(day), tables.get(day));
+        }, 0, tables.getFirst().length).writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,66 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HistoricLotBuffersTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testAppendBuffered_InMemoryAndSpilled_WriteSameLotsInOrder() throws IOException {
+        String expected = "[{\"lot\":0,\"values\":[0,0,0]},{\"lot\":1,\"values\":[1,1,1]},{\"lot\":2,\"values\":[2,2,2]}]";
+
+        assertEquals(expected, written(HistoricLotBuffers.MEMORY_BYTES_PER_LOT));
+        assertEquals(expected, written(4));
+    }
+
+    @Test
+    void testClose_SpilledLots_DeletesTheirFiles() throws IOException {
+        long filesBefore = lotFiles();
+
+        written(4);
+
+        assertEquals(filesBefore, lotFiles());
+    }
+
+    // three lots over the values of three "days", interleaved the way a pass over a period writes them
+    private String written(int memoryBytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator json = objectMapper.createGenerator(out)) {
+            json.writeStartArray();
+            try (HistoricLotBuffers lots = new HistoricLotBuffers(json, out, objectMapper, false, 0, 3, memoryBytes)) {
+                for (int lot = 0; lot < 3; lot++) {
+                    lots.lot(lot).writeStartObject();
+                    lots.lot(lot).writeNumberField("lot", lot);
+                    lots.lot(lot).writeArrayFieldStart("values");
+                }
+                for (int day = 0; day < 3; day++)
+                    for (int lot = 0; lot < 3; lot++) lots.lot(lot).writeNumber(lot);
+                for (int lot = 0; lot < 3; lot++) {
+                    lots.lot(lot).writeEndArray();
+                    lots.lot(lot).writeEndObject();
+                }
+                lots.appendBuffered();
+            }
+            json.writeEndArray();
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static long lotFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("historic-lot-")).count();
+        }
+    }
+}
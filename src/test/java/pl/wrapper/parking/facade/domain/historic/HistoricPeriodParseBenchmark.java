@@ -0,0 +1,99 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.wrapper.parking.facade.dto.historicData.HistoricDayData;
+import pl.wrapper.parking.facade.dto.historicData.TimestampEntry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Streaming {@code days} packed days the way {@code forEachDayOfPeriod} does: {@link HistoricDayMapper#mapAhead}
+ * unpacks them, with {@code parallelism} workers, while the consumer builds the per-lot DTOs of each day on the
+ * calling thread. {@code sequential} is the same stream below the threshold, unpacked on the calling thread. Run
+ * across parallelism values for the speedup curve, see Wiki/Benchmarks.md.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoricPeriodParseBenchmark {
+
+    private static final List<String> START_TIMES = IntStream.range(0, 288)
+            .mapToObj(slot -> String.format("%02d:%02d", slot * 5 / 60, slot * 5 % 60))
+            .toList();
+
+    @Param({"365", "1095"})
+    private int days;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private List<PackedHistoricDataEntry> packedDays;
+    private HistoricDayMapper sequentialMapper;
+    private HistoricDayMapper parallelMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        packedDays = new ArrayList<>(days);
+        for (int day = 0; day < days; day++)
+            packedDays.add(new PackedHistoricDataEntry(LocalDate.of(2022, 1, 1).plusDays(day),
+                    HistoricTableCodec.encode(HistoricTableCodecBenchmark.syntheticDay(random))));
+        sequentialMapper = new HistoricDayMapper(Integer.MAX_VALUE, 1);
+        parallelMapper = new HistoricDayMapper(0, parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sequentialMapper.shutdown();
+        parallelMapper.shutdown();
+    }
+
+    @Benchmark
+    public void sequential(Blackhole blackhole) {
+        stream(sequentialMapper, blackhole);
+    }
+
+    @Benchmark
+    public void parallel(Blackhole blackhole) {
+        stream(parallelMapper, blackhole);
+    }
+
+    private void stream(HistoricDayMapper mapper, Blackhole blackhole) {
+        Iterator<HistoricDataEntry> days = mapper.mapAhead(packedDays.iterator(), PackedHistoricDataEntry::unpack);
+        while (days.hasNext()) blackhole.consume(parseDay(days.next()));
+    }
+
+    private static HistoricDayData[] parseDay(HistoricDataEntry day) {
+        short[][] dataTable = day.getParkingInfo();
+        HistoricDayData[] parsedDay = new HistoricDayData[dataTable.length];
+        for (int i = 0; i < dataTable.length; i++) {
+            List<TimestampEntry> entryList = new ArrayList<>(dataTable[i].length);
+            for (int slot = 0; slot < dataTable[i].length; slot++)
+                entryList.add(new TimestampEntry(START_TIMES.get(slot), dataTable[i][slot]));
+            parsedDay[i] = new HistoricDayData(day.getDate(), entryList);
+        }
+        return parsedDay;
+    }
+}
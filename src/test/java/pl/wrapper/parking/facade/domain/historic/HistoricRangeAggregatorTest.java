@@ -0,0 +1,51 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import org.junit.jupiter.api.Test;
+import pl.wrapper.parking.facade.dto.historicData.HistoricAggregateEntry;
+import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodAggregateData;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricRangeAggregatorTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 10);
+    private static final List<String> SLOT_TIMES = List.of("00:00", "08:00", "16:00");
+
+    @Test
+    void testResult_ByLot_SkipsGapsAndCountsFullIntervals() {
+        HistoricRangeAggregator aggregator = new HistoricRangeAggregator(false, 0, Integer.MAX_VALUE);
+
+        aggregator.accept(DATE, new short[][] {{10, 0, -1}, {-1, -1, -1}});
+        aggregator.accept(DATE.plusDays(1), new short[][] {{20, 0, 30}, {5, 6, 7}});
+
+        assertEquals(List.of(
+                new HistoricPeriodAggregateData((short) 0, List.of(new HistoricAggregateEntry(null, (short) 0, 12.0, (short) 30, 0.88, 2, 5))),
+                new HistoricPeriodAggregateData((short) 1, List.of(new HistoricAggregateEntry(null, (short) 5, 6.0, (short) 7, null, 0, 3)))
+        ), aggregator.result(new int[] {100}, SLOT_TIMES));
+    }
+
+    @Test
+    void testResult_BySlot_OneEntryPerSlotWithData() {
+        HistoricRangeAggregator aggregator = new HistoricRangeAggregator(true, 1, 2);
+
+        aggregator.accept(DATE, new short[][] {{1, 1, 1}, {10, 0, -1}});
+        aggregator.accept(DATE.plusDays(1), new short[][] {{1, 1, 1}, {20, 4, -1}});
+
+        assertEquals(List.of(new HistoricPeriodAggregateData((short) 1, List.of(
+                new HistoricAggregateEntry("00:00", (short) 10, 15.0, (short) 20, 0.25, 0, 2),
+                new HistoricAggregateEntry("08:00", (short) 0, 2.0, (short) 4, 0.9, 1, 2)
+        ))), aggregator.result(new int[] {0, 20}, SLOT_TIMES));
+    }
+
+    @Test
+    void testResult_NoData_IsEmpty() {
+        HistoricRangeAggregator aggregator = new HistoricRangeAggregator(false, 0, Integer.MAX_VALUE);
+
+        aggregator.accept(DATE, new short[][] {{-1, -1}});
+
+        assertTrue(aggregator.result(new int[0], SLOT_TIMES).isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packing and unpacking {@code days} synthetic day tables of 5 lots x 288 slots: free spots drift during
+ * working hours, settle at night and miss about 2% of fetches. See Wiki/Historic data.md for the sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoricTableCodecBenchmark {
+
+    private static final int PARKINGS = 5;
+    private static final int SLOTS = 288;
+
+    @Param({"31", "365"})
+    private int days;
+
+    private short[][][] tables;
+    private byte[][] packed;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        tables = new short[days][][];
+        packed = new byte[days][];
+        for (int day = 0; day < days; day++) {
+            tables[day] = syntheticDay(random);
+            packed[day] = HistoricTableCodec.encode(tables[day]);
+        }
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) {
+        for (short[][] table : tables) blackhole.consume(HistoricTableCodec.encode(table));
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        for (byte[] bytes : packed) blackhole.consume(HistoricTableCodec.decode(bytes));
+    }
+
+    static short[][] syntheticDay(Random random) {
+        short[][] table = new short[PARKINGS][SLOTS];
+        for (int parking = 0; parking < PARKINGS; parking++) {
+            int capacity = 100 + parking * 120;
+            int freeSpots = capacity;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                if (random.nextInt(50) == 0) {
+                    table[parking][slot] = -1;
+                    continue;
+                }
+                int hour = slot / 12;
+                if (hour >= 7 && hour < 18 && random.nextInt(3) == 0)
+                    freeSpots = Math.clamp(freeSpots + random.nextInt(21) - 12, 0, capacity);
+                else if (random.nextInt(4) == 0) freeSpots = Math.min(capacity, freeSpots + random.nextInt(4));
+                table[parking][slot] = (short) freeSpots;
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,59 @@
+package pl.wrapper.parking.facade.domain.historic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricTableCodecTest {
+
+    @Test
+    void testEncode_RunsAndGaps_RoundTrips() {
+        short[][] table = {
+                {-1, -1, 40, 40, 40, 38, 12, 0, 0, -1},
+                {Short.MAX_VALUE, Short.MIN_VALUE, 0, 0, 0, 0, 0, 0, 0, 1}
+        };
+
+        short[][] decoded = HistoricTableCodec.decode(HistoricTableCodec.encode(table));
+
+        assertTrue(Arrays.deepEquals(table, decoded));
+    }
+
+    @Test
+    void testEncode_RandomTable_RoundTrips() {
+        Random random = new Random(7);
+        short[][] table = new short[5][288];
+        for (short[] row : table)
+            for (int i = 0; i < row.length; i++) row[i] = (short) (random.nextInt(600) - 1);
+
+        assertTrue(Arrays.deepEquals(table, HistoricTableCodec.decode(HistoricTableCodec.encode(table))));
+    }
+
+    @Test
+    void testEncode_EmptyDay_PacksIntoFewBytes() {
+        short[][] table = new HistoricDataEntry(5, 288, null).getParkingInfo();
+
+        byte[] packed = HistoricTableCodec.encode(table);
+
+        assertTrue(packed.length < 20);
+        assertTrue(Arrays.deepEquals(table, HistoricTableCodec.decode(packed)));
+    }
+
+    @Test
+    void testDecode_TruncatedInput_Throws() {
+        byte[] packed = HistoricTableCodec.encode(new short[][] {{1, 2, 3}, {4, 5, 6}});
+
+        assertThrows(IllegalArgumentException.class,
+                () -> HistoricTableCodec.decode(Arrays.copyOf(packed, packed.length - 1)));
+    }
+
+    @Test
+    void testDecode_RunPastEndOfRow_Throws() {
+        // 1 parking, 2 slots, one run of value -1 + 0 and length 3
+        byte[] packed = {1, 2, 0, 3};
+
+        assertThrows(IllegalArgumentException.class, () -> HistoricTableCodec.decode(packed));
+    }
+}
@@ -2,7 +2,6 @@ package pl.wrapper.parking.facade.domain.historic;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
-import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -11,7 +10,6 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import pl.wrapper.parking.facade.dto.historicData.HistoricDayData;
 import pl.wrapper.parking.facade.dto.historicData.HistoricDayParkingData;
-import pl.wrapper.parking.facade.dto.historicData.HistoricPeriodParkingData;
 import pl.wrapper.parking.facade.dto.historicData.TimestampEntry;
 import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
 
@@ -19,10 +17,11 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ParkingHistoricDataServiceImplTest {
@@ -35,18 +34,12 @@ class ParkingHistoricDataServiceImplTest {
     @Mock
     private Query atQuery;
 
-    @Mock
-    private TypedQuery<HistoricDataEntry> periodQuery;
-
-    @Mock
-    private TypedQuery<HistoricDataEntry> fromQuery;
-
     @Mock
     private EntityManager em;
 
     @InjectMocks
     @Spy
-    private final ParkingHistoricDataServiceImpl parkingHistoricDataService = new ParkingHistoricDataServiceImpl(pwrApiServerCaller, intervalLength);
+    private final ParkingHistoricDataServiceImpl parkingHistoricDataService = new ParkingHistoricDataServiceImpl(pwrApiServerCaller, intervalLength, false, 1024L * 1024, null, false, new HistoricDayMapper(64, 1), null);
 
     @Test
     void testGetDataForDay_ValidDate_ReturnsParkingData() {
@@ -123,12 +116,13 @@ class ParkingHistoricDataServiceImplTest {
     }
 
     @Test
-    void testGetDataForPeriod_ValidData_ReturnsHistoricPeriodParkingData() {
+    void testForEachDayOfPeriod_ValidData_StreamsParkingDays() {
         LocalDate fromDate = LocalDate.of(2023, 10, 1);
         LocalDate toDate = LocalDate.of(2023, 10, 3);
         int parkingId = 1;
 
-        List<HistoricDataEntry> testData = List.of(
+        doReturn(Stream.empty()).when(parkingHistoricDataService).streamPackedDataForPeriod(fromDate, toDate);
+        doReturn(Stream.of(
                 new HistoricDataEntry(fromDate, new short[][] {
                         {10, 20, 30},
                         {5, 15, 25}
@@ -137,18 +131,13 @@ class ParkingHistoricDataServiceImplTest {
                         {15, 25, 35},
                         {10, 20, 30}
                 })
-        );
-
-        doReturn(periodQuery).when(parkingHistoricDataService).createPeriodQuery(fromDate, toDate);
-        when(periodQuery.getResultList()).thenReturn(testData);
+        )).when(parkingHistoricDataService).streamArrayDataForPeriod(fromDate, toDate);
 
-        HistoricPeriodParkingData actualData = parkingHistoricDataService.getDataForPeriod(fromDate, toDate, parkingId);
+        List<HistoricDayData> streamedDays = new ArrayList<>();
+        parkingHistoricDataService.forEachDayOfPeriod(fromDate, toDate, parkingId, streamedDays::add);
 
-        assertNotNull(actualData);
-        assertEquals((short) parkingId, actualData.parkingId());
-        assertEquals(2, actualData.dataList().size());
-
-        HistoricDayData firstDay = actualData.dataList().getFirst();
+        assertEquals(2, streamedDays.size());
+        HistoricDayData firstDay = streamedDays.getFirst();
         assertEquals(fromDate, firstDay.atDate());
         assertEquals(3, firstDay.data().size());
         assertEquals("00:00", firstDay.data().getFirst().timestamp());
@@ -156,39 +145,133 @@ class ParkingHistoricDataServiceImplTest {
     }
 
     @Test
-    void testGetDataForPeriod_NoData_ReturnsNull() {
+    void testForEachDayOfPeriod_NoData_StreamsNothing() {
         LocalDate fromDate = LocalDate.of(2023, 10, 1);
         LocalDate toDate = LocalDate.of(2023, 10, 3);
-        int parkingId = 1;
 
-        doReturn(periodQuery).when(parkingHistoricDataService).createPeriodQuery(fromDate, toDate);
-        when(periodQuery.getResultList()).thenReturn(List.of());
+        doReturn(Stream.empty()).when(parkingHistoricDataService).streamPackedDataForPeriod(fromDate, toDate);
+        doReturn(Stream.empty()).when(parkingHistoricDataService).streamArrayDataForPeriod(fromDate, toDate);
 
-        HistoricPeriodParkingData actualData = parkingHistoricDataService.getDataForPeriod(fromDate, toDate, parkingId);
-        assertNull(actualData);
+        List<HistoricDayData> streamedDays = new ArrayList<>();
+        parkingHistoricDataService.forEachDayOfPeriod(fromDate, toDate, 1, streamedDays::add);
+
+        assertTrue(streamedDays.isEmpty());
+        assertEquals(0, parkingHistoricDataService.getParkingCountForPeriod(fromDate, toDate));
     }
 
     @Test
-    void testGetDataForPeriod_FromDateOnly_ReturnsHistoricData() {
+    void testForEachDayOfPeriod_FromDateOnly_StreamsHistoricData() {
         LocalDate fromDate = LocalDate.of(2023, 10, 1);
+
+        doReturn(Stream.empty()).when(parkingHistoricDataService).streamPackedDataForPeriod(fromDate, null);
+        doReturn(Stream.of(new HistoricDataEntry(fromDate, new short[][] {
+                {15, 25, 35},
+                {5, 10, 15}
+        }))).when(parkingHistoricDataService).streamArrayDataForPeriod(fromDate, null);
+
+        List<HistoricDayData> streamedDays = new ArrayList<>();
+        parkingHistoricDataService.forEachDayOfPeriod(fromDate, null, 1, streamedDays::add);
+
+        assertEquals(1, streamedDays.size());
+        assertEquals(fromDate, streamedDays.getFirst().atDate());
+        assertEquals((short) 5, streamedDays.getFirst().data().getFirst().freeSpots());
+    }
+
+    @Test
+    void testForEachDayOfPeriod_PackedDayBetweenArrayDays_KeepsPackedValues() {
+        LocalDate fromDate = LocalDate.of(2023, 10, 1);
+        LocalDate packedDate = LocalDate.of(2023, 10, 2);
+        LocalDate toDate = LocalDate.of(2023, 10, 3);
+
+        doReturn(Stream.of(new PackedHistoricDataEntry(new HistoricDataEntry(packedDate, new short[][] {
+                {-1, 20, 20},
+                {7, 7, -1}
+        })))).when(parkingHistoricDataService).streamPackedDataForPeriod(fromDate, toDate);
+        doReturn(Stream.of(
+                new HistoricDataEntry(fromDate, new short[][] {{1, 2, 3}, {4, 5, 6}}),
+                new HistoricDataEntry(toDate, new short[][] {{1, 2, 3}, {4, 5, 6}})
+        )).when(parkingHistoricDataService).streamArrayDataForPeriod(fromDate, toDate);
+
+        List<HistoricDayData> streamedDays = new ArrayList<>();
+        parkingHistoricDataService.forEachDayOfPeriod(fromDate, toDate, 1, streamedDays::add);
+
+        assertEquals(List.of(fromDate, packedDate, toDate), streamedDays.stream().map(HistoricDayData::atDate).toList());
+        assertEquals(List.of(
+                new TimestampEntry("00:00", (short) 7),
+                new TimestampEntry("08:00", (short) 7),
+                new TimestampEntry("16:00", (short) -1)
+        ), streamedDays.get(1).data());
+    }
+
+    @Test
+    void testForEachDayOfPeriod_RepeatedPastPeriod_ServedFromCache() {
+        LocalDate fromDate = LocalDate.of(2023, 10, 1);
+        LocalDate toDate = LocalDate.of(2023, 10, 3);
         int parkingId = 1;
 
-        List<HistoricDataEntry> testData = List.of(
-                new HistoricDataEntry(fromDate, new short[][] {
-                        {15, 25, 35},
-                        {5, 10, 15}
-                })
-        );
+        doReturn(Stream.empty()).when(parkingHistoricDataService).streamPackedDataForPeriod(fromDate, toDate);
+        doReturn(Stream.of(
+                new HistoricDataEntry(fromDate, new short[][] {{1, 2, 3}, {4, 5, 6}}),
+                new HistoricDataEntry(toDate, new short[][] {{1, 2, 3}, {7, 8, 9}})
+        )).when(parkingHistoricDataService).streamArrayDataForPeriod(fromDate, toDate);
+
+        List<HistoricDayData> firstDays = new ArrayList<>();
+        parkingHistoricDataService.forEachDayOfPeriod(fromDate, toDate, parkingId, firstDays::add);
+        List<HistoricDayData> secondDays = new ArrayList<>();
+        parkingHistoricDataService.forEachDayOfPeriod(fromDate, toDate, parkingId, secondDays::add);
+        HistoricDayParkingData dayData = parkingHistoricDataService.getDataForDay(toDate, parkingId);
+
+        assertEquals(firstDays, secondDays);
+        assertEquals(2, secondDays.size());
+        assertEquals(secondDays.get(1), dayData.data());
+        verify(parkingHistoricDataService, times(1)).streamArrayDataForPeriod(any(), any());
+        verify(parkingHistoricDataService, never()).createAtQuery(any());
+    }
+
+    @Test
+    void testForEachDayOfPeriod_PackedAndArrayDays_StreamsDaysInDateOrder() {
+        LocalDate fromDate = LocalDate.of(2023, 10, 1);
+        LocalDate toDate = LocalDate.of(2023, 10, 4);
+        short[][] dataTable = {{1, 2, 3}, {4, 5, 6}};
 
-        doReturn(fromQuery).when(parkingHistoricDataService).createFromQuery(fromDate);
-        when(fromQuery.getResultList()).thenReturn(testData);
+        doReturn(Stream.of(
+                new PackedHistoricDataEntry(new HistoricDataEntry(LocalDate.of(2023, 10, 2), dataTable)),
+                new PackedHistoricDataEntry(new HistoricDataEntry(LocalDate.of(2023, 10, 4), dataTable))
+        )).when(parkingHistoricDataService).streamPackedDataForPeriod(fromDate, toDate);
+        doReturn(Stream.of(new HistoricDataEntry(LocalDate.of(2023, 10, 3), dataTable)))
+                .when(parkingHistoricDataService).streamArrayDataForPeriod(fromDate, toDate);
 
-        HistoricPeriodParkingData actualData = parkingHistoricDataService.getDataForPeriod(fromDate, null, parkingId);
+        List<HistoricDayData> streamedDays = new ArrayList<>();
+        parkingHistoricDataService.forEachDayOfPeriod(fromDate, toDate, 1, streamedDays::add);
 
-        assertNotNull(actualData);
-        assertEquals((short) parkingId, actualData.parkingId());
-        assertEquals(1, actualData.dataList().size());
-        assertEquals(fromDate, actualData.dataList().getFirst().atDate());
+        assertEquals(List.of(LocalDate.of(2023, 10, 2), LocalDate.of(2023, 10, 3), LocalDate.of(2023, 10, 4)),
+                streamedDays.stream().map(HistoricDayData::atDate).toList());
+        assertEquals((short) 4, streamedDays.getFirst().data().getFirst().freeSpots());
+
+        List<HistoricDayData> cachedDays = new ArrayList<>();
+        parkingHistoricDataService.forEachDayOfPeriod(fromDate, toDate, 1, cachedDays::add);
+
+        assertEquals(streamedDays, cachedDays);
+        verify(parkingHistoricDataService, times(1)).streamArrayDataForPeriod(any(), any());
+        assertEquals(2, parkingHistoricDataService.getParkingCountForPeriod(fromDate, toDate));
+    }
+
+    @Test
+    void testForEachDayOfPeriod_RangeOfLots_PassesEachLotOfEachDay() {
+        LocalDate fromDate = LocalDate.of(2023, 10, 1);
+        LocalDate toDate = LocalDate.of(2023, 10, 2);
+
+        doReturn(Stream.empty()).when(parkingHistoricDataService).streamPackedDataForPeriod(fromDate, toDate);
+        doReturn(Stream.of(
+                new HistoricDataEntry(fromDate, new short[][] {{1, 2, 3}}),
+                new HistoricDataEntry(toDate, new short[][] {{1, 2, 3}, {4, 5, 6}, {7, 8, 9}})
+        )).when(parkingHistoricDataService).streamArrayDataForPeriod(fromDate, toDate);
+
+        List<String> streamedLots = new ArrayList<>();
+        parkingHistoricDataService.forEachDayOfPeriod(fromDate, toDate, 0, 2,
+                (day, parkingId) -> streamedLots.add(day.atDate() + "#" + parkingId + ":" + day.data().getFirst().freeSpots()));
+
+        assertEquals(List.of("2023-10-01#0:1", "2023-10-02#0:1", "2023-10-02#1:4"), streamedLots);
     }
 
     @Test
@@ -0,0 +1,134 @@
+package pl.wrapper.parking.facade.domain.main;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import pl.wrapper.parking.facade.dto.main.NominatimLocation;
+import pl.wrapper.parking.infrastructure.nominatim.client.NominatimClient;
+import pl.wrapper.parking.infrastructure.web.SerializedResponseCache;
+import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests per second on {@code /address} against a real Tomcat, with a geocoder that answers after
+ * {@link #GEOCODING_LATENCY}. {@value #CLIENTS} clients send requests back to back, so the score is the most
+ * the server sustains at that concurrency. The {@code blocking} geocoder sleeps on the request thread like a
+ * blocking client library would, the {@code nonBlocking} one completes from a timer. With {@code platform}
+ * threads Tomcat has {@value #SERVER_THREADS} workers, {@code virtual} runs every request on its own
+ * virtual thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(ClosestParkingLoadBenchmark.CLIENTS)
+@Fork(1)
+public class ClosestParkingLoadBenchmark {
+
+    static final int CLIENTS = 64;
+    static final int SERVER_THREADS = 16;
+    static final Duration GEOCODING_LATENCY = Duration.ofMillis(100);
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"blocking", "nonBlocking"})
+    private String geocoder;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void start() {
+        // arguments, not builder properties: those are defaults and application.properties would override them
+        context = new SpringApplicationBuilder(LoadTestApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--server.tomcat.threads.max=" + SERVER_THREADS,
+                        "--spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                        "--benchmark.geocoder=" + geocoder,
+                        "--logging.level.root=WARN");
+        Environment environment = context.getEnvironment();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String contextPath = environment.getProperty("server.servlet.context-path", "");
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + contextPath + "/address?address=Wroclaw"))
+                .build();
+    }
+
+    @TearDown
+    public void stop() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int request() throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) throw new IllegalStateException("Unexpected status " + response.statusCode());
+        return response.statusCode();
+    }
+
+    // not a @Configuration: it sits under pl.wrapper.parking, so the tests' component scan would pick it up and
+    // its NominatimClient would clash with the real one; SpringApplicationBuilder takes it as a source anyway
+    @EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+    @Import({ParkingController.class, ParkingServiceImpl.class, SerializedResponseCache.class})
+    static class LoadTestApplication {
+
+        @Bean
+        PwrApiServerCaller pwrApiServerCaller() {
+            return new StubPwrApiServerCaller(false);
+        }
+
+        @Bean
+        NominatimClient nominatimClient(Environment environment) {
+            NominatimLocation location = new NominatimLocation(51.1, 17.06);
+            if ("blocking".equals(environment.getProperty("benchmark.geocoder")))
+                return (query, format) -> Flux.defer(() -> {
+                    sleep(GEOCODING_LATENCY);
+                    return Flux.just(location);
+                });
+            return (query, format) -> Mono.delay(GEOCODING_LATENCY).thenMany(Flux.just(location));
+        }
+
+        private static void sleep(Duration duration) {
+            try {
+                Thread.sleep(duration);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package pl.wrapper.parking.facade.domain.main;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import pl.wrapper.parking.infrastructure.web.PrettyPrintJsonHttpMessageConverter;
+import pl.wrapper.parking.infrastructure.web.SerializedResponseCache;
+import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Requests to the single lot endpoints through the Spring MVC stack. With {@code stable} data the snapshot
+ * is reused like between two refreshes, with {@code refreshed} every request gets a new snapshot, so the
+ * body has to be rendered each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 3)
+@Fork(1)
+public class ParkingControllerBenchmark {
+
+    @Param({"id", "name", "symbol"})
+    private String endpoint;
+
+    @Param({"stable", "refreshed"})
+    private String data;
+
+    private MockMvc mockMvc;
+    private MockHttpServletRequestBuilder request;
+
+    @Setup
+    public void setUp() {
+        // request logging would dominate the measurement
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        PwrApiServerCaller pwrApiServerCaller = new StubPwrApiServerCaller("refreshed".equals(data));
+        ParkingController controller = new ParkingController(
+                new ParkingServiceImpl(pwrApiServerCaller, null),
+                new SerializedResponseCache(objectMapper, pwrApiServerCaller, 3));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setMessageConverters(
+                        new ByteArrayHttpMessageConverter(),
+                        new StringHttpMessageConverter(),
+                        new PrettyPrintJsonHttpMessageConverter(objectMapper))
+                .build();
+        request = switch (endpoint) {
+            case "id" -> get("/id").param("id", "3");
+            case "name" -> get("/name").param("name", "Parking 3");
+            default -> get("/symbol").param("symbol", "P3");
+        };
+    }
+
+    @Benchmark
+    public MockHttpServletResponse request() throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        return mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+    }
+}
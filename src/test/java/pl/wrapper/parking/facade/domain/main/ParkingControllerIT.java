@@ -9,20 +9,27 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import pl.wrapper.parking.facade.ParkingHistoricDataService;
 import pl.wrapper.parking.facade.dto.main.NominatimLocation;
 import pl.wrapper.parking.infrastructure.nominatim.client.NominatimClient;
 import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
 import pl.wrapper.parking.pwrResponseHandler.dto.Address;
 import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingSnapshot;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.anything;
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -70,9 +77,9 @@ public class ParkingControllerIT {
         NominatimLocation location = new NominatimLocation(37.0, -158.0);
 
         when(nominatimClient.search(eq(address), anyString())).thenReturn(Flux.just(location));
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkings);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings));
 
-        mockMvc.perform(get("/address").queryParam("address", address).accept(MediaType.APPLICATION_JSON))
+        perform(get("/address").queryParam("address", address).accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.parkingId", is(1)))
                 .andExpect(jsonPath("$.name", is("Parking 1")))
@@ -85,11 +92,11 @@ public class ParkingControllerIT {
         String address = "non-existent address";
         when(nominatimClient.search(eq(address), anyString())).thenReturn(Flux.empty());
 
-        mockMvc.perform(get("/address").queryParam("address", address).accept(MediaType.APPLICATION_JSON))
+        perform(get("/address").queryParam("address", address).accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.errorMessage", anything()));
 
-        verify(pwrApiServerCaller, never()).fetchParkingData();
+        verify(pwrApiServerCaller, never()).snapshot();
     }
 
     @Test
@@ -97,27 +104,27 @@ public class ParkingControllerIT {
         String address = "test place";
         NominatimLocation location = new NominatimLocation(37.0, -158.0);
         when(nominatimClient.search(eq(address), anyString())).thenReturn(Flux.just(location));
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(Collections.emptyList());
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(Collections.emptyList()));
 
-        mockMvc.perform(get("/address").queryParam("address", address).accept(MediaType.APPLICATION_JSON))
+        perform(get("/address").queryParam("address", address).accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.errorMessage", anything()));
     }
 
     @Test
     public void getParkingByParams_returnAllParkings_whenNoParamsGiven() throws Exception {
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkings);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings));
 
-        mockMvc.perform(get("").accept(MediaType.APPLICATION_JSON))
+        perform(get("").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(parkings)));
     }
 
     @Test
     public void getParkingBySymbol_returnFoundParking() throws Exception {
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkings);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings));
 
-        mockMvc.perform(get("/symbol")
+        perform(get("/symbol")
                         .accept(MediaType.APPLICATION_JSON)
                         .queryParam("symbol", "P1"))
                 .andExpect(status().isOk())
@@ -129,12 +136,23 @@ public class ParkingControllerIT {
 
     @Test
     public void getParkingByName_returnNoParkings() throws Exception {
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkings);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings));
 
-        mockMvc.perform(get("/name")
+        perform(get("/name")
                         .accept(MediaType.APPLICATION_JSON)
                         .queryParam("name", "Non-existent name"))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.errorMessage", anything()));
     }
+
+    private static Mono<ParkingSnapshot> snapshotOf(List<ParkingResponse> parkings) {
+        return Mono.just(new ParkingSnapshot(1, parkings, Instant.now()));
+    }
+
+    // live endpoints complete asynchronously, their response is written on the async dispatch
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
 }
@@ -9,27 +9,36 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import pl.wrapper.parking.facade.ParkingService;
+import pl.wrapper.parking.facade.dto.main.NearbyParking;
 import pl.wrapper.parking.infrastructure.error.ParkingError;
 import pl.wrapper.parking.infrastructure.error.Result;
 import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
 import pl.wrapper.parking.pwrResponseHandler.dto.Address;
 import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalTime;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.anything;
 import static org.hamcrest.CoreMatchers.is;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -93,9 +102,9 @@ public class ParkingControllerTest {
                 .symbol("P1")
                 .address(new Address("street 1", 37.1f, -158.8f))
                 .build();
-        when(parkingService.getClosestParking(address)).thenReturn(Result.success(parking));
+        when(parkingService.getClosestParking(address)).thenReturn(Mono.just(Result.success(parking)));
 
-        mockMvc.perform(get("/address").queryParam("address", address).accept(MediaType.APPLICATION_JSON))
+        perform(get("/address").queryParam("address", address).accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.parkingId", is(parking.parkingId())))
                 .andExpect(jsonPath("$.name", is(parking.name())))
@@ -109,9 +118,9 @@ public class ParkingControllerTest {
     void getClosestParking_returnNotFound() throws Exception {
         String address = "non-existent address";
         ParkingError.ParkingNotFoundByAddress error = new ParkingError.ParkingNotFoundByAddress(address);
-        when(parkingService.getClosestParking(address)).thenReturn(Result.failure(error));
+        when(parkingService.getClosestParking(address)).thenReturn(Mono.just(Result.failure(error)));
 
-        mockMvc.perform(get("/address").queryParam("address", address).accept(MediaType.APPLICATION_JSON))
+        perform(get("/address").queryParam("address", address).accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.errorMessage", anything()));
     }
@@ -119,9 +128,9 @@ public class ParkingControllerTest {
     @Test()
     void getAllParkingsWithFreeSpots_shouldReturnListOfParking() throws Exception {
         List<ParkingResponse> serviceResponse = List.of(parkingData.get(1), parkingData.get(2), parkingData.get(3));
-        when(parkingService.getAllWithFreeSpots(null)).thenReturn(serviceResponse);
+        when(parkingService.getAllWithFreeSpots(null)).thenReturn(Mono.just(serviceResponse));
 
-        String jsonResponse = mockMvc.perform(get("/free").accept(MediaType.APPLICATION_JSON))
+        String jsonResponse = perform(get("/free").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andReturn()
                 .getResponse()
@@ -138,9 +147,9 @@ public class ParkingControllerTest {
     @Test
     void getOpenedParkingsWithFreeSpots_shouldReturnListOfParking() throws Exception {
         List<ParkingResponse> serviceResponse = List.of(parkingData.get(3));
-        when(parkingService.getAllWithFreeSpots(true)).thenReturn(serviceResponse);
+        when(parkingService.getAllWithFreeSpots(true)).thenReturn(Mono.just(serviceResponse));
 
-        String jsonResponse = mockMvc.perform(
+        String jsonResponse = perform(
                         get("/free").queryParam("opened", "true").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andReturn()
@@ -158,9 +167,9 @@ public class ParkingControllerTest {
     @Test
     void getOpenedParkingsWithFreeSpots_shouldReturnEmptyListOfParking() throws Exception {
         List<ParkingResponse> serviceResponse = List.of();
-        when(parkingService.getAllWithFreeSpots(true)).thenReturn(serviceResponse);
+        when(parkingService.getAllWithFreeSpots(true)).thenReturn(Mono.just(serviceResponse));
 
-        String jsonResponse = mockMvc.perform(
+        String jsonResponse = perform(
                         get("/free").queryParam("opened", "true").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andReturn()
@@ -174,9 +183,9 @@ public class ParkingControllerTest {
     @Test
     void getClosedParkingsWithFreeSpots_shouldReturnListOfParking() throws Exception {
         List<ParkingResponse> serviceResponse = List.of(parkingData.get(1), parkingData.get(2));
-        when(parkingService.getAllWithFreeSpots(false)).thenReturn(serviceResponse);
+        when(parkingService.getAllWithFreeSpots(false)).thenReturn(Mono.just(serviceResponse));
 
-        String jsonResponse = mockMvc.perform(
+        String jsonResponse = perform(
                         get("/free").queryParam("opened", "false").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andReturn()
@@ -194,9 +203,9 @@ public class ParkingControllerTest {
     @Test
     void getParkingWithTheMostFreeSpacesFromAll_shouldReturnParking() throws Exception {
         Result<ParkingResponse> serviceResponse = Result.success(parkingData.get(1));
-        when(parkingService.getWithTheMostFreeSpots(null)).thenReturn(serviceResponse);
+        when(parkingService.getWithTheMostFreeSpots(null)).thenReturn(Mono.just(serviceResponse));
 
-        mockMvc.perform(get("/free/top").accept(MediaType.APPLICATION_JSON))
+        perform(get("/free/top").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.freeSpots").value(325))
                 .andExpect(jsonPath("$.symbol").value("P2"));
@@ -205,9 +214,9 @@ public class ParkingControllerTest {
     @Test
     void getParkingWithTheMostFreeSpacesFromOpened_shouldReturnParking() throws Exception {
         Result<ParkingResponse> serviceResponse = Result.success(parkingData.get(3));
-        when(parkingService.getWithTheMostFreeSpots(true)).thenReturn(serviceResponse);
+        when(parkingService.getWithTheMostFreeSpots(true)).thenReturn(Mono.just(serviceResponse));
 
-        mockMvc.perform(get("/free/top").queryParam("opened", "true").accept(MediaType.APPLICATION_JSON))
+        perform(get("/free/top").queryParam("opened", "true").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.freeSpots").value(51))
                 .andExpect(jsonPath("$.symbol").value("P4"));
@@ -216,9 +225,9 @@ public class ParkingControllerTest {
     @Test
     void getParkingWithTheMostFreeSpacesFromClosed_shouldReturnParking() throws Exception {
         Result<ParkingResponse> serviceResponse = Result.success(parkingData.get(1));
-        when(parkingService.getWithTheMostFreeSpots(false)).thenReturn(serviceResponse);
+        when(parkingService.getWithTheMostFreeSpots(false)).thenReturn(Mono.just(serviceResponse));
 
-        mockMvc.perform(get("/free/top").queryParam("opened", "false").accept(MediaType.APPLICATION_JSON))
+        perform(get("/free/top").queryParam("opened", "false").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.freeSpots").value(325))
                 .andExpect(jsonPath("$.symbol").value("P2"));
@@ -227,9 +236,9 @@ public class ParkingControllerTest {
     @Test
     void getParkingWithTheMostFreeSpacesFromClosed_shouldReturnNotFound() throws Exception {
         Result<ParkingResponse> serviceResponse = Result.failure(new ParkingError.NoFreeParkingSpotsAvailable());
-        when(parkingService.getWithTheMostFreeSpots(false)).thenReturn(serviceResponse);
+        when(parkingService.getWithTheMostFreeSpots(false)).thenReturn(Mono.just(serviceResponse));
 
-        mockMvc.perform(get("/free/top").queryParam("opened", "false").accept(MediaType.APPLICATION_JSON))
+        perform(get("/free/top").queryParam("opened", "false").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.errorMessage", anything()));
     }
@@ -237,8 +246,8 @@ public class ParkingControllerTest {
     @Test
     void getAllWithParams_shouldReturnResultBody() throws Exception {
         ParkingResponse parkingResponse = parkingData.getFirst();
-        when(parkingService.getByParams(any(), any(), any(), any(), any())).thenReturn(List.of(parkingResponse));
-        MvcResult result = mockMvc.perform(get("/")).andExpect(status().isOk()).andReturn();
+        when(parkingService.getByParams(any(), any(), any(), any(), any())).thenReturn(Mono.just(List.of(parkingResponse)));
+        MvcResult result = perform(get("/")).andExpect(status().isOk()).andReturn();
 
         String listJson = result.getResponse().getContentAsString();
         JSONArray jsonArray = new JSONArray(listJson);
@@ -250,19 +259,110 @@ public class ParkingControllerTest {
     @Test
     void getById_ShouldReturnError() throws Exception {
         int incorrectId = parkingData.getLast().parkingId()+100;
-        when(parkingService.getById(incorrectId, null)).thenReturn(Result.failure(new ParkingError.ParkingNotFoundById(incorrectId)));
-        mockMvc.perform(get("/id").param("id", String.valueOf(incorrectId)))
+        when(parkingService.getById(incorrectId, null)).thenReturn(Mono.just(Result.failure(new ParkingError.ParkingNotFoundById(incorrectId))));
+        perform(get("/id").param("id", String.valueOf(incorrectId)))
                 .andExpect(status().isNotFound());
     }
 
     @Test
     void anyEndpoint_shouldParseCorrectly() throws Exception {
         ParkingResponse parkingResponse = parkingData.getFirst();
-        Mockito.when(parkingService.getById(parkingResponse.parkingId(), null)).thenReturn(Result.success(parkingResponse));
-        MvcResult mvcResult = mockMvc.perform(get("/id")
+        Mockito.when(parkingService.getById(parkingResponse.parkingId(), null)).thenReturn(Mono.just(Result.success(parkingResponse)));
+        MvcResult mvcResult = perform(get("/id")
                         .param("id", String.valueOf(parkingResponse.parkingId())))
                 .andReturn();
         Integer status = mvcResult.getResponse().getStatus();
         assertEquals(HttpStatus.OK.value(), status);
     }
+
+    @Test
+    void getAllWithFreeSpots_shouldAnswerMatchingIfNoneMatchWithNotModified() throws Exception {
+        when(parkingService.getAllWithFreeSpots(null)).thenReturn(Mono.just(parkingData));
+        MvcResult first = perform(get("/free"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=180, public"))
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        perform(get("/free").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        perform(get("/free").header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+    }
+
+    @Test
+    void getById_shouldChangeETagWithData() throws Exception {
+        ParkingResponse parking = parkingData.get(1);
+        ParkingResponse refreshed = ParkingResponse.builder()
+                .parkingId(parking.parkingId())
+                .name(parking.name())
+                .symbol(parking.symbol())
+                .freeSpots(parking.freeSpots() - 1)
+                .build();
+        when(parkingService.getById(parking.parkingId(), null))
+                .thenReturn(Mono.just(Result.success(parking)), Mono.just(Result.success(refreshed)));
+
+        String first = perform(get("/id").param("id", String.valueOf(parking.parkingId())))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String second = perform(get("/id").param("id", String.valueOf(parking.parkingId())))
+                .andExpect(jsonPath("$.freeSpots").value(refreshed.freeSpots()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(first).isNotNull().isNotEqualTo(second);
+    }
+
+    @Test
+    void getByName_shouldNotCacheErrors() throws Exception {
+        when(parkingService.getByName("none", null)).thenReturn(Mono.just(Result.failure(new ParkingError.ParkingNotFoundByName("none"))));
+        perform(get("/name").param("name", "none"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void getById_shouldReturnCompactJsonUnlessPrettyRequested() throws Exception {
+        ParkingResponse parking = parkingData.get(1);
+        when(parkingService.getById(parking.parkingId(), null)).thenReturn(Mono.just(Result.success(parking)));
+
+        String compact = perform(get("/id").param("id", String.valueOf(parking.parkingId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.openingHours").value("12:00:00"))
+                .andReturn().getResponse().getContentAsString();
+        String pretty = perform(get("/id")
+                        .param("id", String.valueOf(parking.parkingId()))
+                        .param("pretty", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.symbol").value("P2"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(compact).doesNotContain("\n");
+        assertThat(pretty).contains("\n");
+    }
+
+    @Test
+    void getNearest_shouldReturnLotsWithDistance() throws Exception {
+        when(parkingService.getNearest(51.1, 17.0, 2))
+                .thenReturn(Mono.just(List.of(new NearbyParking(parkingData.get(2), 0.25), new NearbyParking(parkingData.get(0), 1.5))));
+
+        perform(get("/nearest").param("lat", "51.1").param("lon", "17.0").param("count", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].parking.symbol").value("P3"))
+                .andExpect(jsonPath("$[0].distanceKm").value(0.25))
+                .andExpect(jsonPath("$[1].parking.symbol").value("P1"));
+    }
+
+    @Test
+    void getNearest_shouldRejectInvalidCoordinates() throws Exception {
+        perform(get("/nearest").param("lat", "91").param("lon", "17.0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // live endpoints complete asynchronously, their response is written on the async dispatch
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
 }
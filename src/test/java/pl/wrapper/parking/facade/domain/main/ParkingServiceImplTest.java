@@ -12,8 +12,12 @@ import pl.wrapper.parking.infrastructure.nominatim.client.NominatimClient;
 import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
 import pl.wrapper.parking.pwrResponseHandler.dto.Address;
 import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingSnapshot;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.time.Instant;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -94,14 +98,14 @@ public class ParkingServiceImplTest {
         NominatimLocation location = new NominatimLocation(37.0, -158.0);
 
         when(nominatimClient.search(eq(address), anyString())).thenReturn(Flux.just(location));
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkings1);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings1));
 
-        Result<ParkingResponse> result = parkingService.getClosestParking(address);
+        Result<ParkingResponse> result = parkingService.getClosestParking(address).block();
         assertThat(result.isSuccess()).isTrue();
         assertThat(result.getData()).matches(p -> p.name().equals("Parking 1"));
 
         verify(nominatimClient).search(address, "json");
-        verify(pwrApiServerCaller).fetchParkingData();
+        verify(pwrApiServerCaller).snapshot();
     }
 
     @Test
@@ -110,12 +114,12 @@ public class ParkingServiceImplTest {
 
         when(nominatimClient.search(eq(address), anyString())).thenReturn(Flux.empty());
 
-        Result<ParkingResponse> result = parkingService.getClosestParking(address);
+        Result<ParkingResponse> result = parkingService.getClosestParking(address).block();
         assertThat(result.isSuccess()).isFalse();
         assertThat(result.getError()).isInstanceOf(ParkingError.ParkingNotFoundByAddress.class);
 
         verify(nominatimClient).search(address, "json");
-        verify(pwrApiServerCaller, never()).fetchParkingData();
+        verify(pwrApiServerCaller, never()).snapshot();
     }
 
     @Test
@@ -124,20 +128,20 @@ public class ParkingServiceImplTest {
         NominatimLocation location = new NominatimLocation(37.0, -158.0);
 
         when(nominatimClient.search(eq(address), anyString())).thenReturn(Flux.just(location));
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(Collections.emptyList());
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(Collections.emptyList()));
 
-        Result<ParkingResponse> result = parkingService.getClosestParking(address);
+        Result<ParkingResponse> result = parkingService.getClosestParking(address).block();
         assertThat(result.isSuccess()).isFalse();
         assertThat(result.getError()).isInstanceOf(ParkingError.ParkingNotFoundByAddress.class);
 
         verify(nominatimClient).search(address, "json");
-        verify(pwrApiServerCaller).fetchParkingData();
+        verify(pwrApiServerCaller).snapshot();
     }
 
     @Test()
     void getAllParkingsWithFreeSpots_shouldReturnList() {
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkings2);
-        List<ParkingResponse> result = parkingService.getAllWithFreeSpots(null);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings2));
+        List<ParkingResponse> result = parkingService.getAllWithFreeSpots(null).block();
 
         assertEquals(3, result.size());
         assertTrue(result.stream().allMatch(parking -> parking.freeSpots() > 0));
@@ -145,8 +149,8 @@ public class ParkingServiceImplTest {
 
     @Test
     void getOpenedParkingsWithFreeSpots_shouldReturnList() {
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkings2);
-        List<ParkingResponse> result = parkingService.getAllWithFreeSpots(true);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings2));
+        List<ParkingResponse> result = parkingService.getAllWithFreeSpots(true).block();
 
         assertEquals(1, result.size());
         assertTrue(result.stream().allMatch(parking -> parking.freeSpots() > 0 && parking.isOpened()));
@@ -157,16 +161,16 @@ public class ParkingServiceImplTest {
         List<ParkingResponse> parkingDataLocal = new ArrayList<>(parkings2);
         parkingDataLocal.remove(3);
 
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkingDataLocal);
-        List<ParkingResponse> result = parkingService.getAllWithFreeSpots(true);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkingDataLocal));
+        List<ParkingResponse> result = parkingService.getAllWithFreeSpots(true).block();
 
         assertEquals(0, result.size());
     }
 
     @Test
     void getClosedParkingsWithFreeSpots_shouldReturnList() {
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkings2);
-        List<ParkingResponse> result = parkingService.getAllWithFreeSpots(false);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings2));
+        List<ParkingResponse> result = parkingService.getAllWithFreeSpots(false).block();
 
         assertEquals(2, result.size());
         assertTrue(result.stream().allMatch(parking -> parking.freeSpots() > 0 && !parking.isOpened()));
@@ -174,8 +178,8 @@ public class ParkingServiceImplTest {
 
     @Test
     void getParkingWithTheMostFreeSpacesFromAll_shouldReturnSuccessResult() {
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkings2);
-        Result<ParkingResponse> result = parkingService.getWithTheMostFreeSpots(null);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings2));
+        Result<ParkingResponse> result = parkingService.getWithTheMostFreeSpots(null).block();
 
         assertTrue(result.isSuccess());
         assertEquals(325, result.getData().freeSpots());
@@ -184,8 +188,8 @@ public class ParkingServiceImplTest {
 
     @Test
     void getParkingWithTheMostFreeSpacesFromOpened_shouldReturnSuccessResult() {
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkings2);
-        Result<ParkingResponse> result = parkingService.getWithTheMostFreeSpots(true);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings2));
+        Result<ParkingResponse> result = parkingService.getWithTheMostFreeSpots(true).block();
 
         assertTrue(result.isSuccess());
         assertEquals(51, result.getData().freeSpots());
@@ -194,8 +198,8 @@ public class ParkingServiceImplTest {
 
     @Test
     void getParkingWithTheMostFreeSpacesFromClosed_shouldReturnSuccessResult() {
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkings2);
-        Result<ParkingResponse> result = parkingService.getWithTheMostFreeSpots(false);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings2));
+        Result<ParkingResponse> result = parkingService.getWithTheMostFreeSpots(false).block();
 
         assertTrue(result.isSuccess());
         assertEquals(325, result.getData().freeSpots());
@@ -207,10 +211,64 @@ public class ParkingServiceImplTest {
         List<ParkingResponse> parkingDataLocal = new ArrayList<>(parkings2);
         parkingDataLocal.remove(2);
         parkingDataLocal.remove(1);
-        when(pwrApiServerCaller.fetchParkingData()).thenReturn(parkingDataLocal);
-        Result<ParkingResponse> result = parkingService.getWithTheMostFreeSpots(false);
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkingDataLocal));
+        Result<ParkingResponse> result = parkingService.getWithTheMostFreeSpots(false).block();
 
         assertFalse(result.isSuccess());
         assertInstanceOf(ParkingError.NoFreeParkingSpotsAvailable.class, result.getError());
     }
+
+    @Test
+    void getById_shouldReturnParkingWithGivenId() {
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings2));
+
+        assertEquals("P3", parkingService.getById(3, null).block().getData().symbol());
+        assertInstanceOf(ParkingError.ParkingNotFoundById.class, parkingService.getById(9, null).block().getError());
+        assertInstanceOf(ParkingError.ParkingNotFoundById.class, parkingService.getById(3, true).block().getError());
+    }
+
+    @Test
+    void getBySymbol_shouldPreferExactMatchAndFallBackToSymbolContainedInQuery() {
+        List<ParkingResponse> parkings = List.of(
+                ParkingResponse.builder().parkingId(1).name("Parking 1").symbol("P1").build(),
+                ParkingResponse.builder().parkingId(2).name("Parking 10").symbol("P10").build());
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings));
+
+        assertEquals(2, parkingService.getBySymbol("p10", null).block().getData().parkingId());
+        assertEquals(1, parkingService.getBySymbol("WRO-P1", null).block().getData().parkingId());
+        assertInstanceOf(ParkingError.ParkingNotFoundBySymbol.class, parkingService.getBySymbol("X", null).block().getError());
+    }
+
+    @Test
+    void getByName_shouldMatchIgnoringCase() {
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings2));
+
+        assertEquals(4, parkingService.getByName("parking 4", null).block().getData().parkingId());
+        assertInstanceOf(ParkingError.ParkingNotFoundByName.class, parkingService.getByName("Garage", null).block().getError());
+    }
+
+    @Test
+    void getByParams_shouldCombineFilters() {
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings2));
+
+        assertThat(parkingService.getByParams("P2 P3 P4", null, null, null, true).block())
+                .extracting(ParkingResponse::parkingId)
+                .containsExactly(2, 3, 4);
+        assertThat(parkingService.getByParams(null, 1, null, null, false).block())
+                .extracting(ParkingResponse::parkingId)
+                .containsExactly(1);
+        assertThat(parkingService.getByParams("P2", 1, null, null, null).block()).isEmpty();
+    }
+
+    @Test
+    void index_shouldFollowNewlyFetchedParkingList() {
+        when(pwrApiServerCaller.snapshot()).thenReturn(snapshotOf(parkings1), snapshotOf(parkings2));
+
+        assertInstanceOf(ParkingError.ParkingNotFoundById.class, parkingService.getById(4, null).block().getError());
+        assertEquals("P4", parkingService.getById(4, null).block().getData().symbol());
+    }
+
+    private static Mono<ParkingSnapshot> snapshotOf(List<ParkingResponse> parkings) {
+        return Mono.just(new ParkingSnapshot(1, parkings, Instant.now()));
+    }
 }
@@ -0,0 +1,107 @@
+package pl.wrapper.parking.facade.domain.main;
+
+import org.junit.jupiter.api.Test;
+import pl.wrapper.parking.facade.dto.main.NearbyParking;
+import pl.wrapper.parking.pwrResponseHandler.dto.Address;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.wrapper.parking.facade.domain.main.ParkingSpatialIndex.haversineDistance;
+
+class ParkingSpatialIndexTest {
+
+    private final Random random = new Random(42);
+
+    // lots spread over Wroclaw and its surroundings, roughly 60 x 45 km
+    private final List<ParkingResponse> parkings = IntStream.rangeClosed(1, 3000)
+            .mapToObj(id -> parking(id, 50.9f + random.nextFloat() * 0.4f, 16.7f + random.nextFloat() * 0.8f))
+            .toList();
+    private final ParkingSpatialIndex index = new ParkingSpatialIndex(parkings);
+
+    @Test
+    void nearest_shouldMatchBruteForce() {
+        for (int i = 0; i < 200; i++) {
+            double lat = 50.8 + random.nextDouble() * 0.6;
+            double lon = 16.6 + random.nextDouble() * 1.0;
+            int count = 1 + random.nextInt(20);
+
+            assertThat(index.nearest(lat, lon, count))
+                    .extracting(nearby -> nearby.parking().parkingId())
+                    .containsExactlyElementsOf(bruteForce(lat, lon).stream().limit(count).toList());
+        }
+    }
+
+    @Test
+    void within_shouldMatchBruteForce() {
+        for (int i = 0; i < 200; i++) {
+            double lat = 50.8 + random.nextDouble() * 0.6;
+            double lon = 16.6 + random.nextDouble() * 1.0;
+            double radius = random.nextDouble() * 5;
+
+            List<NearbyParking> result = index.within(lat, lon, radius);
+            assertThat(result).extracting(nearby -> nearby.parking().parkingId())
+                    .containsExactlyElementsOf(bruteForce(lat, lon).stream()
+                            .filter(id -> distance(lat, lon, parkings.get(id - 1)) <= radius)
+                            .toList());
+            assertThat(result).allMatch(nearby -> nearby.distanceKm() <= radius);
+        }
+    }
+
+    @Test
+    void inArea_shouldReturnLotsInsideViewport() {
+        List<ParkingResponse> result = index.inArea(51.0, 16.9, 51.1, 17.1);
+
+        assertThat(result)
+                .isNotEmpty()
+                .containsExactlyElementsOf(parkings.stream()
+                        .filter(p -> p.address().geoLatitude() >= 51.0 && p.address().geoLatitude() <= 51.1)
+                        .filter(p -> p.address().geoLongitude() >= 16.9 && p.address().geoLongitude() <= 17.1)
+                        .toList());
+    }
+
+    @Test
+    void nearest_shouldFindLotCentimetresAway() {
+        ParkingSpatialIndex close = new ParkingSpatialIndex(List.of(parking(1, 51.1f, 17.06f), parking(2, 51.2f, 17.06f)));
+
+        assertThat(close.nearest(51.1, 17.06, 1)).extracting(nearby -> nearby.parking().parkingId())
+                .containsExactly(1);
+        assertThat(ParkingSpatialIndex.haversineDistance(51.1, 17.06, 51.1f, 17.06f)).isPositive();
+    }
+
+    @Test
+    void shouldSkipLotsWithoutCoordinates() {
+        ParkingSpatialIndex partial = new ParkingSpatialIndex(List.of(
+                ParkingResponse.builder().parkingId(1).build(),
+                parking(2, Float.NaN, 17f),
+                parking(3, 51.1f, 17.03f)));
+
+        assertThat(partial.nearest(51.1, 17.0, 5)).extracting(nearby -> nearby.parking().parkingId())
+                .containsExactly(3);
+        assertThat(new ParkingSpatialIndex(List.of()).nearest(51.1, 17.0, 5)).isEmpty();
+    }
+
+    private List<Integer> bruteForce(double lat, double lon) {
+        return parkings.stream()
+                .sorted(Comparator.comparingDouble(parking -> distance(lat, lon, parking)))
+                .map(ParkingResponse::parkingId)
+                .toList();
+    }
+
+    private static double distance(double lat, double lon, ParkingResponse parking) {
+        return haversineDistance(lat, lon, parking.address().geoLatitude(), parking.address().geoLongitude());
+    }
+
+    private static ParkingResponse parking(int id, float lat, float lon) {
+        return ParkingResponse.builder()
+                .parkingId(id)
+                .name("Parking " + id)
+                .symbol("P" + id)
+                .address(new Address("street " + id, lat, lon))
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package pl.wrapper.parking.facade.domain.main;
+
+import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
+import pl.wrapper.parking.pwrResponseHandler.dto.Address;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingSnapshot;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/** Five lots around Wrocław served without any upstream, for the benchmarks of the live endpoints. */
+final class StubPwrApiServerCaller implements PwrApiServerCaller {
+    private final boolean newSnapshotPerCall;
+    private ParkingSnapshot snapshot = new ParkingSnapshot(1, parkings(), Instant.now());
+
+    StubPwrApiServerCaller(boolean newSnapshotPerCall) {
+        this.newSnapshotPerCall = newSnapshotPerCall;
+    }
+
+    @Override
+    public List<ParkingResponse> fetchParkingData() {
+        return fetchSnapshot().parkings();
+    }
+
+    @Override
+    public ParkingSnapshot fetchSnapshot() {
+        if (newSnapshotPerCall) snapshot = snapshot.next(parkings());
+        return snapshot;
+    }
+
+    @Override
+    public Optional<ParkingSnapshot> currentSnapshot() {
+        return Optional.of(snapshot);
+    }
+
+    @Override
+    public Mono<ParkingSnapshot> snapshot() {
+        return Mono.fromSupplier(this::fetchSnapshot);
+    }
+
+    @Override
+    public Mono<List<Object>> getAllChartsForToday() {
+        return Mono.just(List.of());
+    }
+
+    private static List<ParkingResponse> parkings() {
+        return IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> ParkingResponse.builder()
+                        .parkingId(i)
+                        .name("Parking " + i)
+                        .symbol("P" + i)
+                        .freeSpots(10 * i)
+                        .totalSpots(100)
+                        .openingHours(LocalTime.of(6, 0))
+                        .closingHours(LocalTime.of(22, 0))
+                        .address(new Address("ul. Wybrzeże Wyspiańskiego " + i, 51.1f, 17.06f))
+                        .urlToPhoto("/images/photos/geo-l0" + i + ".jpg")
+                        .build())
+                .toList();
+    }
+}
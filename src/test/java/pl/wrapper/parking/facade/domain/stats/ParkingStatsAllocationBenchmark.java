@@ -0,0 +1,96 @@
+package pl.wrapper.parking.facade.domain.stats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.wrapper.parking.facade.dto.stats.ParkingStatsResponse;
+import pl.wrapper.parking.facade.dto.stats.daily.CollectiveDailyParkingStats;
+import pl.wrapper.parking.facade.dto.stats.daily.DailyParkingStatsResponse;
+import pl.wrapper.parking.facade.dto.stats.weekly.CollectiveWeeklyParkingStats;
+import pl.wrapper.parking.facade.dto.stats.weekly.WeeklyParkingStatsResponse;
+import pl.wrapper.parking.infrastructure.inMemory.ParkingDataRepository;
+import pl.wrapper.parking.infrastructure.inMemory.dto.OccupancyProfile;
+import pl.wrapper.parking.infrastructure.inMemory.dto.ParkingData;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every stats call over lots that collected a year of 10 minute samples. Run with {@code -prof gc}: the
+ * {@code gc.alloc.rate.norm} of a call should stay at the result list and, for {@code stats*}, the two small
+ * response objects per lot. See Wiki/Benchmarks.md.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingStatsAllocationBenchmark {
+
+    private static final int SLOT_MINUTES = 10;
+    private static final int WEEKS = 52;
+    private static final LocalTime TIME = LocalTime.of(14, 20);
+
+    @Param({"5", "20"})
+    private int parkingCount;
+
+    private ParkingStatsServiceImpl service;
+
+    @Setup
+    public void setUp() {
+        ParkingDataRepository repository = new ParkingDataRepository("target/benchmark/parkingData", null);
+        Random random = new Random(42);
+        for (int id = 1; id <= parkingCount; id++) {
+            OccupancyProfile profile = new OccupancyProfile(SLOT_MINUTES);
+            for (int week = 0; week < WEEKS; week++)
+                for (DayOfWeek day : DayOfWeek.values())
+                    for (int slot = 0; slot < profile.slotsPerDay(); slot++)
+                        profile = profile.withSample(day, profile.timeOf(slot), random.nextDouble());
+            ParkingData data = new ParkingData(id, 100 + id, profile);
+            repository.add(id, data);
+        }
+        service = new ParkingStatsServiceImpl(repository, SLOT_MINUTES);
+    }
+
+    @Benchmark
+    public List<ParkingStatsResponse> statsByDay() {
+        return service.getParkingStats(null, DayOfWeek.WEDNESDAY, TIME);
+    }
+
+    @Benchmark
+    public List<ParkingStatsResponse> statsByTime() {
+        return service.getParkingStats(null, null, TIME);
+    }
+
+    @Benchmark
+    public List<DailyParkingStatsResponse> daily() {
+        return service.getDailyParkingStats(null, DayOfWeek.WEDNESDAY);
+    }
+
+    @Benchmark
+    public List<WeeklyParkingStatsResponse> weekly() {
+        return service.getWeeklyParkingStats(null);
+    }
+
+    @Benchmark
+    public List<CollectiveDailyParkingStats> collectiveDaily() {
+        return service.getCollectiveDailyParkingStats(null, DayOfWeek.WEDNESDAY);
+    }
+
+    @Benchmark
+    public List<CollectiveWeeklyParkingStats> collectiveWeekly() {
+        return service.getCollectiveWeeklyParkingStats(null);
+    }
+}
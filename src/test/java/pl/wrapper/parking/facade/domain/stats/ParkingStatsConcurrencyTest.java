@@ -0,0 +1,125 @@
+package pl.wrapper.parking.facade.domain.stats;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pl.wrapper.parking.facade.dto.stats.weekly.CollectiveWeeklyParkingStats;
+import pl.wrapper.parking.facade.dto.stats.weekly.WeeklyParkingStatsResponse;
+import pl.wrapper.parking.infrastructure.inMemory.ParkingDataRepository;
+import pl.wrapper.parking.infrastructure.inMemory.dto.OccupancyProfile;
+import pl.wrapper.parking.infrastructure.inMemory.dto.ParkingData;
+import pl.wrapper.parking.pwrResponseHandler.PwrApiServerCaller;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+
+import java.io.File;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ingestion, stats reads and checkpoints running at the same time on one {@link ParkingDataRepository}.
+ * Every sample is 0.25 and every ingestion round adds a lot, so a torn read or an unsafe iteration shows up
+ * as an exception or as an average other than 0.25.
+ */
+class ParkingStatsConcurrencyTest {
+
+    private static final String PATH = "data/statistics/tests-concurrency";
+    private static final int ROUNDS = 100;
+    private static final int READERS = 4;
+
+    private final AtomicInteger round = new AtomicInteger();
+    private final AtomicBoolean ingesting = new AtomicBoolean(true);
+
+    @AfterEach
+    void tearDown() {
+        new File(PATH).delete();
+        new File(PATH + ".log").delete();
+    }
+
+    @Test
+    void readersAndCheckpointsShouldSeeOnlyCompleteSamples() throws Exception {
+        PwrApiServerCaller caller = mock(PwrApiServerCaller.class);
+        when(caller.fetchParkingData()).thenAnswer(invocation -> parkings(round.incrementAndGet()));
+        ParkingDataRepository repository = repository(caller);
+        ParkingStatsServiceImpl service = new ParkingStatsServiceImpl(repository, 10);
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            for (int i = 0; i < ROUNDS; i++) ReflectionTestUtils.invokeMethod(repository, "handleData");
+            ingesting.set(false);
+            return ROUNDS;
+        });
+        for (int i = 0; i < READERS; i++) tasks.add(() -> read(service));
+        tasks.add(() -> {
+            int checkpoints = 0;
+            while (ingesting.get()) {
+                ReflectionTestUtils.invokeMethod(repository, "periodicSerialize");
+                checkpoints++;
+                Thread.sleep(1);
+            }
+            return checkpoints;
+        });
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(tasks.size())) {
+            for (Future<Integer> result : executor.invokeAll(tasks)) assertThat(result.get()).isPositive();
+        }
+
+        assertThat(repository.values()).hasSize(ROUNDS);
+        assertThat(totalSamples(repository.get(1))).isEqualTo(ROUNDS);
+
+        // what the last checkpoint and the log hold after the race is what the readers saw last
+        ParkingDataRepository restarted = repository(caller);
+        assertThat(restarted.values()).hasSize(ROUNDS);
+        for (ParkingData data : repository.values())
+            assertThat(totalSamples(restarted.get(data.parkingId()))).isEqualTo(totalSamples(data));
+    }
+
+    private int read(ParkingStatsServiceImpl service) {
+        int reads = 0;
+        while (ingesting.get()) {
+            for (WeeklyParkingStatsResponse stats : service.getWeeklyParkingStats(null))
+                assertThat(stats.stats().averageAvailability()).isEqualTo(0.25);
+            for (CollectiveWeeklyParkingStats stats : service.getCollectiveWeeklyParkingStats(null))
+                stats.statsMap().values().forEach(daily -> daily.values()
+                        .forEach(slot -> assertThat(slot.averageAvailability()).isEqualTo(0.25)));
+            reads++;
+        }
+        return Math.max(reads, 1);
+    }
+
+    private static ParkingDataRepository repository(PwrApiServerCaller caller) {
+        ParkingDataRepository repository = new ParkingDataRepository(PATH, caller);
+        ReflectionTestUtils.setField(repository, "minuteInterval", 10);
+        ReflectionTestUtils.invokeMethod(repository, "init");
+        return repository;
+    }
+
+    private static int totalSamples(ParkingData data) {
+        OccupancyProfile profile = data.occupancy();
+        int samples = 0;
+        for (DayOfWeek day : DayOfWeek.values())
+            for (int slot = 0; slot < profile.slotsPerDay(); slot++) samples += profile.sampleCount(day, slot);
+        return samples;
+    }
+
+    private static List<ParkingResponse> parkings(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(id -> ParkingResponse.builder()
+                        .parkingId(id)
+                        .freeSpots(25)
+                        .totalSpots(100)
+                        .build())
+                .toList();
+    }
+}
@@ -10,12 +10,11 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import pl.wrapper.parking.infrastructure.inMemory.ParkingDataRepository;
-import pl.wrapper.parking.infrastructure.inMemory.dto.AvailabilityData;
+import pl.wrapper.parking.infrastructure.inMemory.dto.OccupancyProfile;
 import pl.wrapper.parking.infrastructure.inMemory.dto.ParkingData;
 
 import java.time.LocalTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import static java.time.DayOfWeek.*;
@@ -40,24 +39,24 @@ public class ParkingStatsControllerIT {
 
     @BeforeEach
     public void setUp() {
+        OccupancyProfile firstProfile = new OccupancyProfile(10)
+                .withSample(MONDAY, LocalTime.of(10, 0), 0.8)
+                .withSample(MONDAY, LocalTime.of(12, 0), 0.5)
+                .withSample(TUESDAY, LocalTime.of(10, 0), 0.7);
+        OccupancyProfile secondProfile = new OccupancyProfile(10)
+                .withSample(MONDAY, LocalTime.of(10, 0), 0.6)
+                .withSample(WEDNESDAY, LocalTime.of(14, 0), 0.9);
+
         parkingData = List.of(
                 ParkingData.builder()
                         .parkingId(1)
                         .totalSpots(100)
-                        .freeSpotsHistory(Map.of(
-                                MONDAY,
-                                Map.of(
-                                        LocalTime.of(10, 0), new AvailabilityData(1, 0.8),
-                                        LocalTime.of(12, 0), new AvailabilityData(1, 0.5)),
-                                TUESDAY,
-                                Map.of(LocalTime.of(10, 0), new AvailabilityData(1, 0.7))))
+                        .occupancy(firstProfile)
                         .build(),
                 ParkingData.builder()
                         .parkingId(2)
                         .totalSpots(200)
-                        .freeSpotsHistory(Map.of(
-                                MONDAY, Map.of(LocalTime.of(10, 0), new AvailabilityData(1, 0.6)),
-                                WEDNESDAY, Map.of(LocalTime.of(14, 0), new AvailabilityData(1, 0.9))))
+                        .occupancy(secondProfile)
                         .build());
     }
 
@@ -0,0 +1,115 @@
+package pl.wrapper.parking.facade.domain.stats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.wrapper.parking.facade.dto.stats.basis.OccupancyInfo;
+import pl.wrapper.parking.facade.dto.stats.weekly.CollectiveWeeklyParkingStats;
+import pl.wrapper.parking.facade.dto.stats.weekly.WeeklyParkingStatsResponse;
+import pl.wrapper.parking.infrastructure.inMemory.ParkingDataRepository;
+import pl.wrapper.parking.infrastructure.inMemory.dto.OccupancyProfile;
+import pl.wrapper.parking.infrastructure.inMemory.dto.ParkingData;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weekly stats over a full week of 10 minute slots, served from the views {@link ParkingData} keeps up to date
+ * vs the loop over the nested {@code Map<DayOfWeek, Map<LocalTime, ...>>} history used before. {@code sample}
+ * is what ingestion pays per lot to keep the views current. Run with {@code -prof gc}, see Wiki/Benchmarks.md.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingStatsServiceBenchmark {
+
+    private static final int SLOT_MINUTES = 10;
+
+    @Param({"5", "50"})
+    private int parkingCount;
+
+    private ParkingStatsServiceImpl service;
+    private ParkingData lot;
+    private List<Map<DayOfWeek, Map<LocalTime, double[]>>> nestedHistories;
+
+    @Setup
+    public void setUp() {
+        ParkingDataRepository repository = new ParkingDataRepository("target/benchmark/parkingData", null);
+        nestedHistories = new ArrayList<>();
+        Random random = new Random(42);
+        for (int id = 1; id <= parkingCount; id++) {
+            OccupancyProfile profile = new OccupancyProfile(SLOT_MINUTES);
+            Map<DayOfWeek, Map<LocalTime, double[]>> nested = new HashMap<>();
+            for (DayOfWeek day : DayOfWeek.values()) {
+                Map<LocalTime, double[]> daily = new HashMap<>();
+                for (int slot = 0; slot < profile.slotsPerDay(); slot++) {
+                    double availability = random.nextDouble();
+                    profile = profile.withSample(day, profile.timeOf(slot), availability);
+                    daily.put(profile.timeOf(slot), new double[] {1, availability});
+                }
+                nested.put(day, daily);
+            }
+            lot = new ParkingData(id, 100, profile);
+            repository.add(id, lot);
+            nestedHistories.add(nested);
+        }
+        service = new ParkingStatsServiceImpl(repository, SLOT_MINUTES);
+    }
+
+    @Benchmark
+    public List<WeeklyParkingStatsResponse> weeklyProfile() {
+        return service.getWeeklyParkingStats(null);
+    }
+
+    @Benchmark
+    public List<CollectiveWeeklyParkingStats> collectiveWeeklyProfile() {
+        return service.getCollectiveWeeklyParkingStats(null);
+    }
+
+    @Benchmark
+    public ParkingData sample() {
+        return lot.withSample(DayOfWeek.WEDNESDAY, LocalTime.NOON, 0.5);
+    }
+
+    // the weekly loop as it ran over the nested map history, {count, average} per slot
+    @Benchmark
+    public List<OccupancyInfo> weeklyNestedMaps() {
+        List<OccupancyInfo> result = new ArrayList<>();
+        for (Map<DayOfWeek, Map<LocalTime, double[]>> history : nestedHistories) {
+            List<Double> availabilities = new ArrayList<>();
+            OccupancyInfo maxOccupancyInfo = null;
+            double minAvailability = Double.POSITIVE_INFINITY;
+            for (Map.Entry<DayOfWeek, Map<LocalTime, double[]>> dailyEntry : history.entrySet()) {
+                for (Map.Entry<LocalTime, double[]> timeEntry : dailyEntry.getValue().entrySet()) {
+                    double availability = timeEntry.getValue()[1];
+                    availabilities.add(availability);
+                    OccupancyInfo occupancyInfo = new OccupancyInfo(dailyEntry.getKey(), timeEntry.getKey());
+                    if (availability < minAvailability) {
+                        minAvailability = availability;
+                        maxOccupancyInfo = occupancyInfo;
+                    }
+                }
+            }
+            availabilities.stream().mapToDouble(Double::doubleValue).average();
+            result.add(maxOccupancyInfo);
+        }
+        return result;
+    }
+}
@@ -14,7 +14,7 @@ import pl.wrapper.parking.facade.dto.stats.daily.DailyParkingStatsResponse;
 import pl.wrapper.parking.facade.dto.stats.weekly.CollectiveWeeklyParkingStats;
 import pl.wrapper.parking.facade.dto.stats.weekly.WeeklyParkingStatsResponse;
 import pl.wrapper.parking.infrastructure.inMemory.ParkingDataRepository;
-import pl.wrapper.parking.infrastructure.inMemory.dto.AvailabilityData;
+import pl.wrapper.parking.infrastructure.inMemory.dto.OccupancyProfile;
 import pl.wrapper.parking.infrastructure.inMemory.dto.ParkingData;
 
 import java.time.LocalTime;
@@ -39,23 +39,24 @@ public class ParkingStatsServiceImplTest {
     @BeforeEach
     void setUp() {
         parkingStatsService = new ParkingStatsServiceImpl(dataRepository, 10);
+        OccupancyProfile firstProfile = new OccupancyProfile(10)
+                .withSample(MONDAY, LocalTime.of(10, 0), 0.8)
+                .withSample(MONDAY, LocalTime.of(12, 0), 0.5)
+                .withSample(TUESDAY, LocalTime.of(10, 0), 0.7);
+        OccupancyProfile secondProfile = new OccupancyProfile(10)
+                .withSample(MONDAY, LocalTime.of(10, 0), 0.6)
+                .withSample(WEDNESDAY, LocalTime.of(14, 0), 0.9);
+
         parkingData = List.of(
                 ParkingData.builder()
                         .parkingId(1)
                         .totalSpots(100)
-                        .freeSpotsHistory(Map.of(
-                                MONDAY,
-                                Map.of(
-                                        LocalTime.of(10, 0), new AvailabilityData(1, 0.8),
-                                        LocalTime.of(12, 0), new AvailabilityData(1, 0.5)),
-                                TUESDAY, Map.of(LocalTime.of(10, 0), new AvailabilityData(1, 0.7))))
+                        .occupancy(firstProfile)
                         .build(),
                 ParkingData.builder()
                         .parkingId(2)
                         .totalSpots(200)
-                        .freeSpotsHistory(Map.of(
-                                MONDAY, Map.of(LocalTime.of(10, 0), new AvailabilityData(1, 0.6)),
-                                WEDNESDAY, Map.of(LocalTime.of(14, 0), new AvailabilityData(1, 0.9))))
+                        .occupancy(secondProfile)
                         .build());
     }
 
@@ -141,6 +142,26 @@ public class ParkingStatsServiceImplTest {
         verify(dataRepository, never()).values();
     }
 
+    @Test
+    void getDailyParkingStats_afterNewSample_returnUpdatedStats() {
+        ParkingData sampled = parkingData.getFirst()
+                .withSample(MONDAY, LocalTime.of(12, 0), 0.3)
+                .withSample(TUESDAY, LocalTime.of(18, 0), 0.1);
+        when(dataRepository.values()).thenReturn(List.of(sampled));
+
+        DailyParkingStatsResponse daily = parkingStatsService.getDailyParkingStats(null, MONDAY).getFirst();
+        WeeklyParkingStatsResponse weekly = parkingStatsService.getWeeklyParkingStats(null).getFirst();
+
+        assertThat(daily.stats().averageAvailability()).isEqualTo(0.6);
+        assertThat(daily)
+                .extracting(DailyParkingStatsResponse::maxOccupancyAt, DailyParkingStatsResponse::minOccupancyAt)
+                .containsExactly(LocalTime.of(12, 0), LocalTime.of(10, 0));
+        assertThat(weekly.stats().averageAvailability()).isEqualTo(0.5);
+        assertThat(weekly.maxOccupancyInfo())
+                .extracting(OccupancyInfo::dayOfWeek, OccupancyInfo::time)
+                .containsExactly(TUESDAY, LocalTime.of(18, 0));
+    }
+
     @Test
     void getWeeklyParkingStats_withEmptyIdList_returnCorrectWeeklyStats() {
         when(dataRepository.values()).thenReturn(parkingData);
@@ -3,12 +3,27 @@ package pl.wrapper.parking.infrastructure.inMemory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import pl.wrapper.parking.facade.dto.main.NominatimLocation;
+import pl.wrapper.parking.infrastructure.inMemory.dto.GeocodingData;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class InMemoryRepositoryTest {
@@ -19,9 +34,12 @@ class InMemoryRepositoryTest {
     private static final String path = "data/statistics/tests";
 
     static class InMemoryRepositoryTestImpl extends InMemoryRepositoryImpl<Integer, String> {
+
+        static final SnapshotFormat<Integer, String> FORMAT =
+                new SnapshotFormat<>("tests", 1, "int -> string", BinaryCodec.INT, BinaryCodec.STRING);
         
         public InMemoryRepositoryTestImpl(String filePath, Map<Integer, String> map, String defaultValue) {
-            super(filePath, map, defaultValue);
+            super(filePath, map, defaultValue, FORMAT);
         }
 
         public void testSerialize() {
@@ -35,6 +53,10 @@ class InMemoryRepositoryTest {
         public void deleteData() {
             dataMap.clear();
         }
+
+        public boolean testRemove(Integer key, String value) {
+            return remove(key, value);
+        }
     }
 
     @BeforeEach
@@ -49,6 +71,7 @@ class InMemoryRepositoryTest {
     void tearDown() {
         File file = new File(path);
         file.delete();
+        new File(path + ".log").delete();
     }
 
     @Test
@@ -73,4 +96,109 @@ class InMemoryRepositoryTest {
         inMemoryRepository.testDeserialize();
         assertEquals(inMemoryRepository.get(id), value);
     }
+
+    @Test
+    void shouldRejectCorruptedSnapshot() throws IOException {
+        inMemoryRepository.add(id, value);
+        inMemoryRepository.testSerialize();
+
+        byte[] bytes = Files.readAllBytes(Path.of(path));
+        bytes[bytes.length - 12] ^= 1;
+        Files.write(Path.of(path), bytes);
+
+        assertThrows(SerializationFailedException.class, inMemoryRepository::testDeserialize);
+    }
+
+    @Test
+    void shouldMigrateFileOfFormerJavaSerialization() throws IOException {
+        Files.createDirectories(Path.of(path).getParent());
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(path))) {
+            out.writeObject(new HashMap<>(Map.of(id, value)));
+        }
+
+        inMemoryRepository.testDeserialize();
+
+        assertEquals(value, inMemoryRepository.get(id));
+        assertTrue(SnapshotFile.isSnapshot(Path.of(path)));
+        InMemoryRepositoryTestImpl restarted = new InMemoryRepositoryTestImpl(path, new HashMap<>(), null);
+        restarted.testDeserialize();
+        assertEquals(value, restarted.get(id));
+    }
+
+    @Test
+    void shouldRejectClassOutsideAllowlistOfFormerJavaSerialization() throws IOException {
+        Files.createDirectories(Path.of(path).getParent());
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(path))) {
+            out.writeObject(new HashMap<>(Map.of(id, new StringBuilder(value))));
+        }
+
+        assertThrows(SerializationFailedException.class, inMemoryRepository::testDeserialize);
+        assertFalse(SnapshotFile.isSnapshot(Path.of(path)));
+    }
+
+    @Test
+    void shouldMigrateGeocodingFileOfFormerJavaSerialization() throws IOException {
+        GeocodingData data = new GeocodingData(
+                List.of(new NominatimLocation(51.1, 17.05)), Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        Files.createDirectories(Path.of(path).getParent());
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(path))) {
+            out.writeObject(new ConcurrentHashMap<>(Map.of("wroclaw", data)));
+        }
+
+        GeocodingRepository geocoding = new GeocodingRepository(path, 30, 24);
+        geocoding.init();
+
+        assertEquals(data, geocoding.get("wroclaw"));
+    }
+
+    @Test
+    void shouldRecoverChangesLoggedAfterLastCheckpoint() {
+        inMemoryRepository.testDeserialize();
+        inMemoryRepository.add(id, value);
+
+        InMemoryRepositoryTestImpl restarted = new InMemoryRepositoryTestImpl(path, new HashMap<>(), null);
+        restarted.testDeserialize();
+
+        assertEquals(value, restarted.get(id));
+    }
+
+    @Test
+    void shouldSkipHalfWrittenLogRecord() throws IOException {
+        inMemoryRepository.testDeserialize();
+        inMemoryRepository.add(id, value);
+        Files.write(Path.of(path + ".log"), new byte[] {0, 0, 0, 40, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        InMemoryRepositoryTestImpl restarted = new InMemoryRepositoryTestImpl(path, new HashMap<>(), null);
+        restarted.testDeserialize();
+
+        assertEquals(value, restarted.get(id));
+        assertEquals(1, restarted.fetchAllKeys().size());
+    }
+
+    @Test
+    void shouldRecoverRemovalLoggedAfterLastCheckpoint() {
+        inMemoryRepository.add(id, value);
+        inMemoryRepository.testDeserialize();
+
+        assertTrue(inMemoryRepository.testRemove(id, value));
+
+        InMemoryRepositoryTestImpl restarted = new InMemoryRepositoryTestImpl(path, new HashMap<>(), null);
+        restarted.testDeserialize();
+
+        assertTrue(restarted.fetchAllKeys().isEmpty());
+    }
+
+    @Test
+    void shouldNotRemoveReplacedValue() {
+        inMemoryRepository.testDeserialize();
+        inMemoryRepository.add(id, value);
+        inMemoryRepository.add(id, "newer");
+
+        assertFalse(inMemoryRepository.testRemove(id, value));
+
+        InMemoryRepositoryTestImpl restarted = new InMemoryRepositoryTestImpl(path, new HashMap<>(), null);
+        restarted.testDeserialize();
+
+        assertEquals("newer", restarted.get(id));
+    }
 }
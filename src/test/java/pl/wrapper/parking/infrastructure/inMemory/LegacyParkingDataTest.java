@@ -0,0 +1,129 @@
+package pl.wrapper.parking.infrastructure.inMemory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pl.wrapper.parking.infrastructure.inMemory.LegacyParkingData.Availability;
+import pl.wrapper.parking.infrastructure.inMemory.LegacyParkingData.Parking;
+import pl.wrapper.parking.infrastructure.inMemory.dto.OccupancyProfile;
+import pl.wrapper.parking.infrastructure.inMemory.dto.ParkingData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalTime;
+import java.util.Map;
+
+import static java.time.DayOfWeek.*;
+import static org.assertj.core.api.Assertions.*;
+
+class LegacyParkingDataTest {
+
+    // HashMap<Integer, ParkingData> written by ObjectOutputStream with the classes of before the occupancy profile
+    private static final String FIXTURE = "/inMemory/legacy-parking-data.ser";
+    private static final String PATH = "target/test-data/legacyParkingData";
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(Path.of(PATH));
+        Files.deleteIfExists(Path.of(PATH + ".log"));
+    }
+
+    @Test
+    void read_shouldLoadFileOfFormerSerialization() throws Exception {
+        Map<Integer, Parking> read;
+        try (InputStream in = getClass().getResourceAsStream(FIXTURE)) {
+            read = LegacyParkingData.read(in);
+        }
+
+        assertThat(read).containsOnlyKeys(1, 5);
+        assertThat(read.get(1).totalSpots()).isEqualTo(200);
+        assertThat(read.get(1).freeSpotsHistory().get(MONDAY))
+                .containsEntry(LocalTime.of(8, 0), new Availability(3, 0.25))
+                .containsEntry(LocalTime.of(8, 10), new Availability(2, 0.5));
+        assertThat(read.get(5).freeSpotsHistory().get(SUNDAY))
+                .containsExactly(entry(LocalTime.of(12, 0), new Availability(4, 1.0)));
+    }
+
+    @Test
+    void init_shouldMigrateFileOfFormerSerializationOnce() throws IOException {
+        Files.createDirectories(Path.of(PATH).getParent());
+        try (InputStream in = getClass().getResourceAsStream(FIXTURE)) {
+            Files.copy(in, Path.of(PATH), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        repository().checkMigrated();
+        assertThat(SnapshotFile.isSnapshot(Path.of(PATH))).isTrue();
+        repository().checkMigrated();
+    }
+
+    @Test
+    void convert_shouldKeepCountAndAverageOfEverySampledTime() {
+        Parking legacy = new Parking(
+                3,
+                120,
+                Map.of(
+                        MONDAY,
+                        Map.of(
+                                LocalTime.of(8, 0), new Availability(3, 0.25),
+                                LocalTime.of(8, 10), new Availability(2, 0.5)),
+                        SUNDAY,
+                        Map.of(LocalTime.of(23, 50), new Availability(1, 0.75))));
+
+        ParkingData converted = LegacyParkingData.convert(legacy, 10);
+        OccupancyProfile occupancy = converted.occupancy();
+
+        assertThat(converted.parkingId()).isEqualTo(3);
+        assertThat(converted.totalSpots()).isEqualTo(120);
+        assertThat(occupancy.sampleCount(MONDAY, 48)).isEqualTo(3);
+        assertThat(occupancy.average(MONDAY, 48)).isEqualTo(0.25);
+        assertThat(occupancy.sampleCount(MONDAY, 49)).isEqualTo(2);
+        assertThat(occupancy.average(MONDAY, 49)).isEqualTo(0.5);
+        assertThat(occupancy.sampleCount(SUNDAY, 143)).isEqualTo(1);
+        assertThat(occupancy.hasSamples(TUESDAY, 48)).isFalse();
+        assertThat(converted.stats()).isNotNull();
+    }
+
+    @Test
+    void convert_shouldWeightTimesSharingWiderSlot() {
+        Parking legacy = new Parking(
+                3,
+                120,
+                Map.of(
+                        MONDAY,
+                        Map.of(
+                                LocalTime.of(8, 0), new Availability(3, 0.2),
+                                LocalTime.of(8, 10), new Availability(1, 0.6))));
+
+        OccupancyProfile occupancy = LegacyParkingData.convert(legacy, 30).occupancy();
+
+        assertThat(occupancy.sampleCount(MONDAY, 16)).isEqualTo(4);
+        assertThat(occupancy.average(MONDAY, 16)).isCloseTo(0.3, within(1e-9));
+    }
+
+    private static MigratedRepository repository() {
+        MigratedRepository repository = new MigratedRepository();
+        ReflectionTestUtils.setField(repository, "minuteInterval", 10);
+        ReflectionTestUtils.invokeMethod(repository, "init");
+        return repository;
+    }
+
+    private static class MigratedRepository extends ParkingDataRepository {
+
+        MigratedRepository() {
+            super(PATH, null);
+        }
+
+        void checkMigrated() {
+            assertThat(fetchAllKeys()).containsOnly(1, 5);
+            OccupancyProfile first = get(1).occupancy();
+            assertThat(get(1).totalSpots()).isEqualTo(200);
+            assertThat(first.sampleCount(MONDAY, 48)).isEqualTo(3);
+            assertThat(first.average(MONDAY, 49)).isEqualTo(0.5);
+            assertThat(first.sampleCount(FRIDAY, 143)).isEqualTo(1);
+            assertThat(get(5).occupancy().average(SUNDAY, 72)).isEqualTo(1.0);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package pl.wrapper.parking.infrastructure.inMemory.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalTime;
+
+import static java.time.DayOfWeek.*;
+import static org.assertj.core.api.Assertions.*;
+
+class OccupancyProfileTest {
+
+    private final OccupancyProfile profile = new OccupancyProfile(10);
+
+    @Test
+    void withSample_shouldKeepRunningAveragePerSlot() {
+        OccupancyProfile sampled = profile.withSample(MONDAY, LocalTime.of(10, 0), 0.8)
+                .withSample(MONDAY, LocalTime.of(10, 0), 0.4)
+                .withSample(MONDAY, LocalTime.of(10, 0), 0.6);
+
+        int slot = sampled.slotOf(LocalTime.of(10, 0));
+        assertThat(sampled.sampleCount(MONDAY, slot)).isEqualTo(3);
+        assertThat(sampled.average(MONDAY, slot)).isCloseTo(0.6, within(1e-9));
+        assertThat(sampled.hasSamples(TUESDAY, slot)).isFalse();
+        assertThat(sampled.hasSamples(MONDAY, slot + 1)).isFalse();
+    }
+
+    @Test
+    void withSamples_shouldMergeWeightedBySampleCount() {
+        OccupancyProfile sampled = profile.withSample(MONDAY, LocalTime.of(10, 0), 0.8)
+                .withSamples(MONDAY, LocalTime.of(10, 0), 3, 0.4)
+                .withSamples(MONDAY, LocalTime.of(10, 0), 0, 1.0);
+
+        assertThat(sampled.sampleCount(MONDAY, 60)).isEqualTo(4);
+        assertThat(sampled.average(MONDAY, 60)).isCloseTo(0.5, within(1e-9));
+    }
+
+    @Test
+    void averageOverDays_shouldSkipDaysWithoutSamples() {
+        OccupancyProfile sampled = profile.withSample(MONDAY, LocalTime.of(10, 0), 0.8)
+                .withSample(MONDAY, LocalTime.of(10, 0), 0.4)
+                .withSample(TUESDAY, LocalTime.of(10, 0), 0.9);
+
+        assertThat(sampled.averageOverDays(sampled.slotOf(LocalTime.of(10, 0)))).isCloseTo(0.75, within(1e-9));
+        assertThat(sampled.averageOverDays(sampled.slotOf(LocalTime.of(11, 0)))).isZero();
+    }
+
+    @Test
+    void withSample_shouldLeaveOriginalUnchanged() {
+        OccupancyProfile first = profile.withSample(MONDAY, LocalTime.of(10, 0), 0.8);
+        OccupancyProfile second = first.withSample(MONDAY, LocalTime.of(10, 0), 0.4);
+
+        assertThat(profile.hasSamples(MONDAY, 60)).isFalse();
+        assertThat(first.sampleCount(MONDAY, 60)).isEqualTo(1);
+        assertThat(first.average(MONDAY, 60)).isEqualTo(0.8);
+        assertThat(second.sampleCount(MONDAY, 60)).isEqualTo(2);
+    }
+
+    @Test
+    void writeTo_shouldRoundTripThroughBinaryForm() throws IOException {
+        OccupancyProfile sampled = profile.withSample(MONDAY, LocalTime.of(10, 0), 0.8)
+                .withSample(MONDAY, LocalTime.of(10, 0), 0.4)
+                .withSample(SUNDAY, LocalTime.of(23, 50), 0.1);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sampled.writeTo(new DataOutputStream(bytes));
+        OccupancyProfile read = OccupancyProfile.readFrom(ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertThat(read.slotMinutes()).isEqualTo(10);
+        assertThat(read.sampleCount(MONDAY, 60)).isEqualTo(2);
+        assertThat(read.average(MONDAY, 60)).isEqualTo(sampled.average(MONDAY, 60));
+        assertThat(read.average(SUNDAY, 143)).isEqualTo(0.1);
+        assertThat(read.hasSamples(TUESDAY, 60)).isFalse();
+    }
+
+    @Test
+    void slotOf_shouldMapTimeToSlotAndBack() {
+        assertThat(profile.slotsPerDay()).isEqualTo(144);
+        assertThat(profile.slotOf(LocalTime.MIDNIGHT)).isZero();
+        assertThat(profile.slotOf(LocalTime.of(10, 7, 15))).isEqualTo(60);
+        assertThat(profile.slotOf(LocalTime.MAX)).isEqualTo(143);
+        assertThat(profile.timeOf(60)).isEqualTo(LocalTime.of(10, 0));
+        assertThat(profile.timeOf(143)).isEqualTo(LocalTime.of(23, 50));
+    }
+
+    @Test
+    void constructor_shouldCoverWholeDayForUnevenSlots() {
+        OccupancyProfile uneven = new OccupancyProfile(7);
+
+        assertThat(uneven.slotOf(LocalTime.MAX)).isEqualTo(uneven.slotsPerDay() - 1);
+    }
+
+    @Test
+    void constructor_shouldRejectNonPositiveSlotWidth() {
+        assertThatThrownBy(() -> new OccupancyProfile(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,111 @@
+package pl.wrapper.parking.infrastructure.nominatim.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrapper.parking.facade.dto.main.NominatimLocation;
+import pl.wrapper.parking.infrastructure.exception.NominatimClientException;
+import pl.wrapper.parking.infrastructure.inMemory.GeocodingRepository;
+import pl.wrapper.parking.infrastructure.inMemory.dto.GeocodingData;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingNominatimClientTest {
+
+    private static final NominatimLocation LOCATION = new NominatimLocation(51.107, 17.061);
+
+    @Mock
+    private NominatimClient delegate;
+
+    private GeocodingRepository repository;
+    private CachingNominatimClient client;
+
+    @BeforeEach
+    void setUp() {
+        repository = new GeocodingRepository("data/statistics/tests-geocoding", 30, 24);
+        client = new CachingNominatimClient(delegate, repository, 2);
+    }
+
+    @Test
+    void search_shouldCallNominatimOnceForTheSameNormalizedAddress() {
+        when(delegate.search(anyString(), anyString())).thenReturn(Flux.just(LOCATION));
+
+        StepVerifier.create(client.search("Wybrzeże Wyspiańskiego 27, Wrocław", "json"))
+                .expectNext(LOCATION)
+                .verifyComplete();
+        StepVerifier.create(client.search("  wybrzeże   wyspiańskiego 27 ,wrocław ", "json"))
+                .expectNext(LOCATION)
+                .verifyComplete();
+
+        verify(delegate, times(1)).search(anyString(), anyString());
+    }
+
+    @Test
+    void search_shouldCacheAddressesWithoutResults() {
+        when(delegate.search(anyString(), anyString())).thenReturn(Flux.empty());
+
+        StepVerifier.create(client.search("nowhere", "json")).verifyComplete();
+        StepVerifier.create(client.search("nowhere", "json")).verifyComplete();
+
+        verify(delegate, times(1)).search("nowhere", "json");
+    }
+
+    @Test
+    void search_shouldNotCacheFailedCalls() {
+        when(delegate.search(anyString(), anyString()))
+                .thenReturn(Flux.error(new NominatimClientException("down")), Flux.just(LOCATION));
+
+        StepVerifier.create(client.search("plac grunwaldzki", "json"))
+                .expectError(NominatimClientException.class)
+                .verify();
+        StepVerifier.create(client.search("plac grunwaldzki", "json"))
+                .expectNext(LOCATION)
+                .verifyComplete();
+
+        assertThat(repository.fetchAllKeys()).hasSize(1);
+    }
+
+    @Test
+    void search_shouldFallBackToDiskTierWhenEvictedFromMemory() {
+        when(delegate.search(anyString(), anyString())).thenAnswer(invocation -> Flux.just(LOCATION));
+
+        for (String address : List.of("a", "b", "c", "a")) client.search(address, "json").blockLast();
+        CachingNominatimClient restarted = new CachingNominatimClient(delegate, repository, 2);
+        restarted.search("b", "json").blockLast();
+
+        verify(delegate, times(3)).search(anyString(), anyString());
+    }
+
+    @Test
+    void search_shouldAskAgainWhenNegativeResultExpired() {
+        repository.add(
+                CachingNominatimClient.normalize("nowhere", "json"),
+                new GeocodingData(List.of(), Instant.now().minus(Duration.ofHours(25))));
+        when(delegate.search(anyString(), anyString())).thenReturn(Flux.just(LOCATION));
+
+        StepVerifier.create(client.search("nowhere", "json"))
+                .expectNext(LOCATION)
+                .verifyComplete();
+    }
+
+    @Test
+    void search_shouldNotLookUpBeforeSubscription() {
+        Flux<NominatimLocation> result = client.search("plac grunwaldzki", "json");
+
+        verifyNoInteractions(delegate);
+
+        when(delegate.search(anyString(), anyString())).thenReturn(Flux.just(LOCATION));
+        StepVerifier.create(result).expectNext(LOCATION).verifyComplete();
+    }
+}
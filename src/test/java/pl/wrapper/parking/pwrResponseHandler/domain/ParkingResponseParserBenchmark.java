@@ -0,0 +1,108 @@
+package pl.wrapper.parking.pwrResponseHandler.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.wrapper.parking.pwrResponseHandler.dto.Address;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the token level get_parks decoder with the map based one it replaced.
+ * Run with {@code -prof gc} to see the allocation difference, see Wiki/Benchmarks.md.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingResponseParserBenchmark {
+
+    @Param({"5", "500"})
+    private int parkingCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("{\"success\":0,\"places\":[");
+        for (int i = 0; i < parkingCount; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":\"").append(i + 1)
+                    .append("\",\"nazwa\":\"Parking Politechniki ").append(i)
+                    .append("\",\"symbol\":\"P").append(i)
+                    .append("\",\"liczba_miejsc\":\"").append(i % 120)
+                    .append("\",\"places\":\"120\",\"open_hour\":\"06:00:00\",\"close_hour\":\"22:00:00\"")
+                    .append(",\"address\":\"ul. Wybrzeże Wyspiańskiego ").append(i)
+                    .append(", 50-370 Wrocław\",\"geo_lat\":\"51.10").append(i % 10)
+                    .append("\",\"geo_lan\":\"17.06").append(i % 10)
+                    .append("\",\"trend\":\"0\",\"photo\":\"/images/photos/geo-l0").append(i % 10)
+                    .append(".jpg\",\"aktywny\":\"1\",\"show_park\":\"1\"}");
+        }
+        payload = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<ParkingResponse> streaming() throws IOException {
+        return ParkingResponseParser.parse(payload);
+    }
+
+    @Benchmark
+    public List<ParkingResponse> mapBased() throws IOException {
+        HashMap<?, ?> body = objectMapper.readValue(payload, HashMap.class);
+        return parseMaps(body.get("places"));
+    }
+
+    // the decoding PwrApiCaller used before the streaming parser
+    @SuppressWarnings("unchecked")
+    private static List<ParkingResponse> parseMaps(Object unparsedResponse) {
+        List<ParkingResponse> returnList = new ArrayList<>();
+        ArrayList<Object> firstTierCastList = (ArrayList<Object>) unparsedResponse;
+        int parkingId = 0;
+        for (Object currentParkingPrecast : firstTierCastList) {
+            LinkedHashMap<String, String> currentParking = (LinkedHashMap<String, String>) currentParkingPrecast;
+            int boundlessFreeSpots = Integer.parseInt(currentParking.getOrDefault("liczba_miejsc", "0"));
+            int totalSpots = Integer.parseInt(currentParking.getOrDefault("places", "0"));
+            returnList.add(ParkingResponse.builder()
+                    .parkingId(++parkingId)
+                    .name(currentParking.getOrDefault("nazwa", "unknown"))
+                    .freeSpots(Math.max(0, Math.min(totalSpots, boundlessFreeSpots)))
+                    .symbol(currentParking.getOrDefault("symbol", "unknown"))
+                    .openingHours(parseTime(currentParking.get("open_hour")))
+                    .closingHours(parseTime(currentParking.get("close_hour")))
+                    .totalSpots(totalSpots)
+                    .address(new Address(
+                            currentParking.getOrDefault("address", "unknown").strip(),
+                            Float.parseFloat(currentParking.get("geo_lat")),
+                            Float.parseFloat(currentParking.get("geo_lan"))))
+                    .trend(Short.parseShort(currentParking.getOrDefault("trend", "0")))
+                    .urlToPhoto(currentParking.getOrDefault("photo", "unknown"))
+                    .build());
+        }
+        return returnList;
+    }
+
+    private static LocalTime parseTime(String time) {
+        return time == null ? null : LocalTime.parse(time, DateTimeFormatter.ISO_LOCAL_TIME);
+    }
+}
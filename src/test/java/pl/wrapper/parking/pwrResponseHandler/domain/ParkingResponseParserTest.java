@@ -0,0 +1,85 @@
+package pl.wrapper.parking.pwrResponseHandler.domain;
+
+import org.junit.jupiter.api.Test;
+import pl.wrapper.parking.pwrResponseHandler.dto.Address;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ParkingResponseParserTest {
+
+    private static List<ParkingResponse> parse(String json) throws IOException {
+        return ParkingResponseParser.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void parse_buildsResponsesFromStringValues() throws IOException {
+        String json = """
+                {"success": 0, "places": [{
+                    "id": "4", "nazwa": "Parking 1", "symbol": "P1", "liczba_miejsc": "33", "places": "97",
+                    "open_hour": "08:00:00", "close_hour": "22:00:00", "address": " Street 1 ",
+                    "geo_lat": "51.10", "geo_lan": "17.05", "trend": "-1", "photo": "/images/p1.jpg"
+                }]}
+                """;
+
+        assertThat(parse(json))
+                .containsExactly(ParkingResponse.builder()
+                        .parkingId(1)
+                        .name("Parking 1")
+                        .symbol("P1")
+                        .freeSpots(33)
+                        .totalSpots(97)
+                        .openingHours(LocalTime.of(8, 0))
+                        .closingHours(LocalTime.of(22, 0))
+                        .address(new Address("Street 1", 51.10f, 17.05f))
+                        .trend((short) -1)
+                        .urlToPhoto("/images/p1.jpg")
+                        .build());
+    }
+
+    @Test
+    void parse_acceptsNumericValuesAndFillsDefaults() throws IOException {
+        String json = """
+                {"places": [{"liczba_miejsc": 120, "places": 100, "geo_lat": 51.1, "geo_lan": 17}]}
+                """;
+
+        ParkingResponse parking = parse(json).getFirst();
+
+        assertThat(parking.freeSpots()).isEqualTo(100);
+        assertThat(parking.name()).isEqualTo("unknown");
+        assertThat(parking.symbol()).isEqualTo("unknown");
+        assertThat(parking.openingHours()).isNull();
+        assertThat(parking.address()).isEqualTo(new Address("unknown", 51.1f, 17f));
+    }
+
+    @Test
+    void parse_skipsMalformedRecordsAndKeepsIdsOfTheOthers() throws IOException {
+        String json = """
+                {"places": [
+                    {"symbol": "A", "geo_lat": "51.1", "geo_lan": "17.0"},
+                    {"symbol": "B", "geo_lat": "not a number", "geo_lan": "17.0", "extra": {"nested": [1, 2]}},
+                    "not a parking",
+                    {"symbol": "C", "liczba_miejsc": {"unexpected": true}, "geo_lat": "51.1", "geo_lan": "17.0"},
+                    {"symbol": "D", "geo_lat": "51.1"},
+                    {"symbol": "E", "open_hour": "8 am", "geo_lat": "51.1", "geo_lan": "17.0"},
+                    {"symbol": "F", "geo_lat": "51.1", "geo_lan": "17.0"}
+                ]}
+                """;
+
+        assertThat(parse(json))
+                .extracting(ParkingResponse::parkingId, ParkingResponse::symbol)
+                .containsExactly(tuple(1, "A"), tuple(6, "F"));
+    }
+
+    @Test
+    void parse_failsOnPayloadThatIsNotAnObject() {
+        assertThatThrownBy(() -> parse("[]")).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,144 @@
+package pl.wrapper.parking.pwrResponseHandler.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingResponse;
+import pl.wrapper.parking.pwrResponseHandler.dto.ParkingSnapshot;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PwrApiServerCallerImplTest {
+
+    private static final int CALLERS = 300;
+
+    private PwrApiCaller apiCaller;
+    private PwrApiServerCallerImpl pwrApiServerCaller;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        apiCaller = Mockito.mock(PwrApiCaller.class);
+        pwrApiServerCaller = new PwrApiServerCallerImpl(apiCaller);
+        upstreamCalls = new AtomicInteger();
+    }
+
+    @Test
+    void fetchParkingData_concurrentCallersShareSingleUpstreamCall() throws InterruptedException {
+        Sinks.One<List<ParkingResponse>> upstream = Sinks.one();
+        Mockito.when(apiCaller.fetchParkingPlaces()).thenReturn(Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            return upstream.asMono();
+        }));
+        List<ParkingResponse> data =
+                List.of(ParkingResponse.builder().parkingId(1).name("Parking 1").build());
+
+        Set<List<ParkingResponse>> results = ConcurrentHashMap.newKeySet();
+        List<Thread> callers = new ArrayList<>(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            Thread caller = new Thread(() -> results.add(pwrApiServerCaller.fetchParkingData()));
+            callers.add(caller);
+            caller.start();
+        }
+        awaitAllParked(callers);
+
+        upstream.tryEmitValue(data);
+        for (Thread caller : callers) caller.join(5_000);
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(results).containsExactly(data);
+    }
+
+    @Test
+    void fetchParkingData_servesSnapshotWithoutCallingUpstreamAgain() {
+        Mockito.when(apiCaller.fetchParkingPlaces()).thenReturn(Mono.fromCallable(() -> {
+            upstreamCalls.incrementAndGet();
+            return List.of();
+        }));
+
+        pwrApiServerCaller.fetchParkingData();
+        pwrApiServerCaller.fetchParkingData();
+
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void fetchParkingData_failedUpstreamCallIsNotRemembered() {
+        Mockito.when(apiCaller.fetchParkingPlaces())
+                .thenReturn(Mono.error(new IllegalStateException("simulated")))
+                .thenReturn(Mono.just(List.of()));
+
+        assertThatThrownBy(pwrApiServerCaller::fetchParkingData).hasMessage("simulated");
+        assertThat(pwrApiServerCaller.fetchParkingData()).isEmpty();
+    }
+
+    @Test
+    void refreshSnapshot_swapsInNewVersion() {
+        List<ParkingResponse> first = List.of(ParkingResponse.builder().parkingId(1).freeSpots(10).build());
+        List<ParkingResponse> second = List.of(ParkingResponse.builder().parkingId(1).freeSpots(7).build());
+        Mockito.when(apiCaller.fetchParkingPlaces()).thenReturn(Mono.just(first)).thenReturn(Mono.just(second));
+
+        pwrApiServerCaller.refreshSnapshot();
+        ParkingSnapshot before = pwrApiServerCaller.fetchSnapshot();
+        pwrApiServerCaller.refreshSnapshot();
+        ParkingSnapshot after = pwrApiServerCaller.fetchSnapshot();
+
+        assertThat(before.parkings()).isEqualTo(first);
+        assertThat(after.parkings()).isEqualTo(second);
+        assertThat(after.version()).isEqualTo(before.version() + 1);
+    }
+
+    @Test
+    void refreshSnapshot_keepsServingLastSnapshotWhenUpstreamFails() {
+        List<ParkingResponse> data = List.of(ParkingResponse.builder().parkingId(1).build());
+        Mockito.when(apiCaller.fetchParkingPlaces())
+                .thenReturn(Mono.just(data))
+                .thenReturn(Mono.error(new IllegalStateException("simulated")));
+
+        pwrApiServerCaller.refreshSnapshot();
+        ParkingSnapshot before = pwrApiServerCaller.fetchSnapshot();
+        pwrApiServerCaller.refreshSnapshot();
+
+        assertThat(pwrApiServerCaller.fetchSnapshot()).isSameAs(before);
+        assertThat(pwrApiServerCaller.fetchParkingData()).isEqualTo(data);
+    }
+
+    @Test
+    void snapshot_subscribersWaitForTheFirstFetchWithoutBlockingAndShareItsSnapshot() {
+        Sinks.One<List<ParkingResponse>> upstream = Sinks.one();
+        Mockito.when(apiCaller.fetchParkingPlaces()).thenReturn(Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            return upstream.asMono();
+        }));
+
+        List<ParkingSnapshot> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) pwrApiServerCaller.snapshot().subscribe(results::add);
+        assertThat(results).isEmpty();
+
+        upstream.tryEmitValue(List.of(ParkingResponse.builder().parkingId(1).build()));
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(results).hasSize(3).allSatisfy(snapshot -> assertThat(snapshot).isSameAs(results.getFirst()));
+        assertThat(results.getFirst().version()).isEqualTo(1);
+        assertThat(pwrApiServerCaller.snapshot().block()).isSameAs(results.getFirst());
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    private static void awaitAllParked(List<Thread> threads) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            assertThat(threads).noneMatch(thread -> thread.getState() == Thread.State.TERMINATED);
+            Thread.sleep(10);
+        }
+    }
+}